@@ -0,0 +1,207 @@
+package M2;
+
+/**
+ * Absolute value kernels used by Problem3.bePositive
+ *
+ * <p>
+ * The primitive overloads work on whole arrays (in place or into a preallocated
+ * output) with no boxing. {@link #positive(Object[])} handles boxed and mixed
+ * input: it classifies every element once, picks the output array type from
+ * that pass and then switches on the cached type instead of walking an
+ * instanceof chain per element.
+ * </p>
+ * <p>
+ * Integer.MIN_VALUE and Long.MIN_VALUE have no positive value of the same type.
+ * Every kernel here, boxed or not, throws an ArithmeticException for them (like
+ * Math.absExact) instead of leaving them negative or changing their type; use
+ * {@link #abs(int[], long[])} to get the exact value of an int.
+ * </p>
+ */
+public final class AbsKernels {
+    private AbsKernels() {
+    }
+
+    public static void abs(int[] values) {
+        abs(values, values);
+    }
+
+    public static void abs(int[] src, int[] dst) {
+        checkLength(src.length, dst.length);
+        int overflow = 0;
+        for (int i = 0; i < src.length; i++) {
+            int value = src[i];
+            int sign = value >> 31;
+            int result = (value ^ sign) - sign; // branch-free |value|, stays negative only for MIN_VALUE
+            dst[i] = result;
+            overflow |= result;
+        }
+        if (overflow < 0) {
+            throw new ArithmeticException("Overflow to represent absolute value of Integer.MIN_VALUE");
+        }
+    }
+
+    /**
+     * Widening version that is exact for every int, including Integer.MIN_VALUE
+     *
+     * @param src values to read
+     * @param dst receives |src[i]|, at least as long as src
+     */
+    public static void abs(int[] src, long[] dst) {
+        checkLength(src.length, dst.length);
+        for (int i = 0; i < src.length; i++) {
+            long value = src[i];
+            long sign = value >> 63;
+            dst[i] = (value ^ sign) - sign;
+        }
+    }
+
+    public static void abs(long[] values) {
+        abs(values, values);
+    }
+
+    public static void abs(long[] src, long[] dst) {
+        checkLength(src.length, dst.length);
+        long overflow = 0;
+        for (int i = 0; i < src.length; i++) {
+            long value = src[i];
+            long sign = value >> 63;
+            long result = (value ^ sign) - sign;
+            dst[i] = result;
+            overflow |= result;
+        }
+        if (overflow < 0) {
+            throw new ArithmeticException("Overflow to represent absolute value of Long.MIN_VALUE");
+        }
+    }
+
+    public static void abs(float[] values) {
+        abs(values, values);
+    }
+
+    public static void abs(float[] src, float[] dst) {
+        checkLength(src.length, dst.length);
+        for (int i = 0; i < src.length; i++) {
+            dst[i] = Math.abs(src[i]);
+        }
+    }
+
+    public static void abs(double[] values) {
+        abs(values, values);
+    }
+
+    public static void abs(double[] src, double[] dst) {
+        checkLength(src.length, dst.length);
+        for (int i = 0; i < src.length; i++) {
+            dst[i] = Math.abs(src[i]);
+        }
+    }
+
+    /**
+     * Positive copy of a boxed or mixed array
+     *
+     * <p>
+     * Every value keeps its type: Integer, Long, Float and Double get their
+     * absolute value, Strings lose a leading '-', anything else is converted
+     * with String.valueOf first. The result is an array of the same class as
+     * src (an Integer[] stays an Integer[], an empty array too), or an
+     * Object[] when src can't hold the Strings made from other values.
+     * </p>
+     *
+     * @param src values to make positive
+     * @return new array with the positive values in the same slots
+     * @throws ArithmeticException for Integer.MIN_VALUE or Long.MIN_VALUE
+     */
+    public static Object[] positive(Object[] src) {
+        final int length = src.length;
+        final ValueType[] types = new ValueType[length];
+        ValueType common = null;
+        boolean mixed = false;
+        boolean other = false;
+        for (int i = 0; i < length; i++) {
+            ValueType type = ValueType.of(src[i]);
+            types[i] = type;
+            if (common == null) {
+                common = type;
+            } else if (common != type) {
+                mixed = true;
+            }
+            other |= type == ValueType.OTHER;
+        }
+        // same class as src, unless a value that becomes a String can't be stored in it
+        final Object[] output = other && !src.getClass().getComponentType().isAssignableFrom(String.class)
+                ? new Object[length]
+                : src.clone();
+        if (!mixed && common != null) {
+            positive(src, common, output);
+            return output;
+        }
+        for (int i = 0; i < length; i++) {
+            output[i] = positive(src[i], types[i]);
+        }
+        return output;
+    }
+
+    // every element has the given type: one typed loop, no per element dispatch
+    private static void positive(Object[] src, ValueType type, Object[] output) {
+        final int length = src.length;
+        switch (type) {
+            case INTEGER:
+                for (int i = 0; i < length; i++) {
+                    output[i] = Math.absExact((Integer) src[i]);
+                }
+                break;
+            case LONG:
+                for (int i = 0; i < length; i++) {
+                    output[i] = Math.absExact((Long) src[i]);
+                }
+                break;
+            case FLOAT:
+                for (int i = 0; i < length; i++) {
+                    output[i] = Math.abs((Float) src[i]);
+                }
+                break;
+            case DOUBLE:
+                for (int i = 0; i < length; i++) {
+                    output[i] = Math.abs((Double) src[i]);
+                }
+                break;
+            case STRING:
+                for (int i = 0; i < length; i++) {
+                    output[i] = stripMinus((String) src[i]);
+                }
+                break;
+            default:
+                for (int i = 0; i < length; i++) {
+                    output[i] = stripMinus(String.valueOf(src[i]));
+                }
+                break;
+        }
+    }
+
+    private static Object positive(Object value, ValueType type) {
+        switch (type) {
+            case INTEGER:
+                return Integer.valueOf(Math.absExact((Integer) value));
+            case LONG:
+                return Long.valueOf(Math.absExact((Long) value));
+            case FLOAT:
+                return Float.valueOf(Math.abs((Float) value));
+            case DOUBLE:
+                return Double.valueOf(Math.abs((Double) value));
+            case STRING:
+                return stripMinus((String) value);
+            default:
+                return stripMinus(String.valueOf(value));
+        }
+    }
+
+    private static String stripMinus(String text) {
+        return text.startsWith("-") ? text.substring(1) : text;
+    }
+
+    private static void checkLength(int srcLength, int dstLength) {
+        if (dstLength < srcLength) {
+            throw new IllegalArgumentException("dst must be at least as long as src");
+        }
+    }
+}
@@ -0,0 +1,533 @@
+package M2;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sink behind the BaseClass header, footer and array helpers
+ *
+ * <p>
+ * In {@link Mode#SYNC} (the default) each helper formats and writes on the
+ * calling thread, as before, so its output stays in order with the caller's
+ * own System.out prints. The other modes hand the helper's arguments to a
+ * bounded lock-free ring of preallocated events (many producers, one
+ * consumer) and return; a single daemon writer thread formats the events in
+ * order into its own ConsoleWriter and writes to System.out once per drained
+ * run, so callers never wait on the PrintStream lock. Arrays are copied when
+ * queued, so callers may change them right after.
+ * </p>
+ * <p>
+ * Timestamps come from a cached clock: Instant.now() is read about once a
+ * second and nanoTime fills in between, so capturing one is two reads. The
+ * writer formats them as LocalDateTime.toString() would, reusing the date and
+ * minute text while the second doesn't change. When the ring is full,
+ * {@link Mode#BLOCK} waits for space, {@link Mode#DROP} drops the event and
+ * {@link Mode#SAMPLE} waits for one event in every "sample" and drops the
+ * rest; drops are counted and reported on System.err at exit.
+ * </p>
+ * <p>
+ * The sink BaseClass uses in a queued mode also replaces System.out with a
+ * stream that queues each print as a text event, so the problems' own
+ * "Output:" and separator lines stay in order with the helpers' output. Text
+ * events wait for space in every mode, they are never dropped or sampled.
+ * </p>
+ * <p>
+ * Note: Set with -Dm2.log=sync|block|drop|sample, -Dm2.log.capacity=N (a power
+ * of two, default 1024) and -Dm2.log.sample=N (default 16). System.err is left
+ * alone, so it isn't ordered with System.out in the queued modes;
+ * {@link #flush()} (or System.out.flush()) waits until everything queued is
+ * written. {@link #close()} also stops the writer thread; a queued sink
+ * that isn't closed keeps its daemon writer until the JVM exits.
+ * </p>
+ */
+public final class AsyncLogSink implements AutoCloseable {
+    public enum Mode {
+        SYNC, BLOCK, DROP, SAMPLE
+    }
+
+    public static final String MODE_PROPERTY = "m2.log";
+    public static final String CAPACITY_PROPERTY = "m2.log.capacity";
+    public static final String SAMPLE_PROPERTY = "m2.log.sample";
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_SAMPLE = 16;
+
+    static final int HEADER = 0;
+    static final int FOOTER = 1;
+    static final int INT_ARRAY = 2;
+    static final int DOUBLE_ARRAY = 3;
+    static final int OBJECT_ARRAY = 4;
+    static final int STRING_ARRAY = 5;
+    static final int OUTPUT_WITH_TYPE = 6;
+    static final int TEXT = 7;
+
+    private static final long RECALIBRATE_NANOS = 1_000_000_000L;
+
+    private final Mode mode;
+    private final ConsoleWriter out;
+    private final int sample;
+    private final Event[] ring;
+    private final AtomicLongArray sequences; // slot is free for position p at p, filled for p at p + 1
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong sampled = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private long head; // writer thread only
+    private volatile long written; // events written and flushed
+    private volatile boolean idle;
+    private volatile boolean closed;
+
+    private volatile Calibration calibration = Calibration.now();
+    private final Timestamps timestamps = new Timestamps(); // used under the writer's lock or thread
+    private final StringBuilder time = new StringBuilder(32);
+
+    /**
+     * @param mode     how helpers write, see {@link Mode}
+     * @param out      where events are written; SYNC writes to it on the
+     *                 calling thread, the other modes only on the writer
+     *                 thread, so don't share it then
+     * @param capacity ring size, a power of two
+     * @param sample   SAMPLE mode keeps one in this many events when full
+     *                 (queued modes start a writer thread, {@link #close()}
+     *                 the sink when done with it)
+     */
+    public AsyncLogSink(Mode mode, ConsoleWriter out, int capacity, int sample) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        if (sample < 1) {
+            throw new IllegalArgumentException("sample must be positive");
+        }
+        this.mode = mode;
+        this.out = out;
+        this.sample = sample;
+        this.mask = capacity - 1;
+        if (mode == Mode.SYNC) {
+            ring = null;
+            sequences = null;
+            writer = null;
+            return;
+        }
+        ring = new Event[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            ring[i] = new Event();
+            sequences.set(i, i);
+        }
+        writer = new Thread(this::drainLoop, "m2-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * The sink BaseClass uses, configured by the m2.log system properties;
+     * it writes to System.out, and queued modes then replace System.out with
+     * {@link #printStream(Charset)} and are closed at exit
+     */
+    static AsyncLogSink fromProperties() {
+        String name = System.getProperty(MODE_PROPERTY, "sync");
+        Mode mode;
+        try {
+            mode = Mode.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown " + MODE_PROPERTY + " '" + name + "', using sync");
+            mode = Mode.SYNC;
+        }
+        if (mode == Mode.SYNC) {
+            return new AsyncLogSink(mode, new ConsoleWriter(System.out), DEFAULT_CAPACITY, DEFAULT_SAMPLE);
+        }
+        AsyncLogSink sink = new AsyncLogSink(mode, new ConsoleWriter(System.out),
+                Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY), Integer.getInteger(SAMPLE_PROPERTY,
+                        DEFAULT_SAMPLE));
+        // same encoding the JDK picked for System.out
+        String encoding = System.getProperty("sun.stdout.encoding");
+        System.setOut(sink.printStream(encoding != null && Charset.isSupported(encoding) ? Charset.forName(encoding)
+                : Charset.defaultCharset()));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            sink.close();
+            if (sink.dropped() > 0) {
+                System.err.println(sink.dropped() + " log events dropped");
+            }
+        }, "m2-log-flush"));
+        return sink;
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    // the writer events are rendered into; only safe to share in SYNC mode
+    ConsoleWriter writer() {
+        return out;
+    }
+
+    /**
+     * @return events dropped because the ring was full
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    public void header(String ucid, int problem) {
+        log(HEADER, ucid, problem, null);
+    }
+
+    public void footer(String ucid, int problem) {
+        log(FOOTER, ucid, problem, null);
+    }
+
+    public void arrayInfo(int[] arr, int arrayNumber) {
+        log(INT_ARRAY, null, arrayNumber, arr == null || mode == Mode.SYNC ? arr : arr.clone());
+    }
+
+    public void arrayInfo(double[] arr, int arrayNumber) {
+        log(DOUBLE_ARRAY, null, arrayNumber, arr == null || mode == Mode.SYNC ? arr : arr.clone());
+    }
+
+    public void arrayInfo(Object[] arr, int arrayNumber) {
+        log(OBJECT_ARRAY, null, arrayNumber, arr == null || mode == Mode.SYNC ? arr : arr.clone());
+    }
+
+    public void arrayInfoBasic(String[] arr, int arrayNumber) {
+        log(STRING_ARRAY, null, arrayNumber, arr == null || mode == Mode.SYNC ? arr : arr.clone());
+    }
+
+    public void outputWithType(Object[] arr) {
+        log(OUTPUT_WITH_TYPE, null, 0, mode == Mode.SYNC ? arr : arr.clone());
+    }
+
+    /**
+     * Writes raw bytes in order with the other events; never dropped
+     */
+    public void text(byte[] bytes, int offset, int length) {
+        log(TEXT, null, 0, Arrays.copyOfRange(bytes, offset, offset + length));
+    }
+
+    /**
+     * A PrintStream whose prints become {@link #text(byte[], int, int)} events,
+     * one per print call; its flush() is {@link #flush()}
+     *
+     * @param charset encoding for the printed text
+     */
+    public PrintStream printStream(Charset charset) {
+        return new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+                text(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                text(bytes, offset, length);
+            }
+
+            @Override
+            public void flush() {
+                AsyncLogSink.this.flush();
+            }
+        }, false, charset);
+    }
+
+    /**
+     * Waits until every event queued so far is written and flushed; returns
+     * at once in SYNC mode, once closed, or when the writer thread has died
+     */
+    public void flush() {
+        if (mode == Mode.SYNC) {
+            return;
+        }
+        long target = tail.get();
+        while (written < target && writer.isAlive()) {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(100_000);
+        }
+    }
+
+    /**
+     * Writes everything queued and stops the writer thread; events logged
+     * afterwards are written on the calling thread as in SYNC mode. A producer
+     * that queued an event while close() ran sees the closed flag after
+     * publishing and drains the ring itself, so no event is left behind. Does
+     * nothing in SYNC mode or when already closed.
+     */
+    @Override
+    public void close() {
+        if (mode == Mode.SYNC || closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        LockSupport.unpark(writer);
+        awaitWriter();
+        synchronized (this) {
+            drain(); // events published while the writer was stopping
+        }
+    }
+
+    private void log(int kind, String ucid, int number, Object payload) {
+        long now = now();
+        if (mode == Mode.SYNC || closed) {
+            if (mode != Mode.SYNC) {
+                awaitWriter(); // out is the writer's until it has stopped
+            }
+            synchronized (this) {
+                if (mode != Mode.SYNC) {
+                    drain(); // events that lost the race with close() go first
+                }
+                render(kind, ucid, number, payload, now);
+                out.flush();
+            }
+            return;
+        }
+        long position = claim(kind == TEXT);
+        if (position < 0) {
+            dropped.incrementAndGet();
+            return;
+        }
+        Event event = ring[(int) position & mask];
+        event.kind = kind;
+        event.ucid = ucid;
+        event.number = number;
+        event.payload = payload;
+        event.time = now;
+        sequences.set((int) position & mask, position + 1); // publish
+        if (closed) {
+            // close() may have drained before this event was published, so write it here
+            awaitWriter();
+            synchronized (this) {
+                drain();
+            }
+        } else if (idle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    // next free position, or -1 when full and the mode drops this event; keep always waits
+    private long claim(boolean keep) {
+        boolean mayWait = keep || mode == Mode.BLOCK;
+        boolean decided = keep;
+        int spins = 0;
+        while (true) {
+            long position = tail.get();
+            long sequence = sequences.get((int) position & mask);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+            } else if (sequence < position) {
+                // full: the writer hasn't freed this slot from the last lap yet
+                if (!decided && mode == Mode.SAMPLE) {
+                    mayWait = sampled.incrementAndGet() % sample == 0;
+                    decided = true;
+                }
+                if (!mayWait) {
+                    return -1;
+                }
+                LockSupport.unpark(writer);
+                if (++spins < 64) {
+                    Thread.yield(); // let the writer run, on few cores it may be waiting for this one
+                } else {
+                    LockSupport.parkNanos(10_000);
+                }
+            }
+            // otherwise another producer took it, try the next one
+        }
+    }
+
+    private void drainLoop() {
+        while (true) {
+            if (drain() > 0) {
+                continue;
+            }
+            if (closed) {
+                return;
+            }
+            idle = true;
+            if (!closed && sequences.get((int) head & mask) != head + 1) {
+                LockSupport.parkNanos(this, 10_000_000);
+            }
+            idle = false;
+        }
+    }
+
+    // writes and flushes every published event, returns how many
+    private int drain() {
+        int count = 0;
+        while (true) {
+            int slot = (int) head & mask;
+            if (sequences.get(slot) != head + 1) {
+                break;
+            }
+            Event event = ring[slot];
+            try {
+                render(event.kind, event.ucid, event.number, event.payload, event.time);
+            } catch (Throwable e) {
+                // in SYNC mode this reaches the caller; here it must not stop the writer, flush() waits on it
+                e.printStackTrace();
+            }
+            event.payload = null;
+            event.ucid = null;
+            sequences.set(slot, head + ring.length); // free for the next lap
+            head++;
+            count++;
+        }
+        if (count > 0) {
+            try {
+                out.flush();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            written = head;
+        }
+        return count;
+    }
+
+    private void awaitWriter() {
+        if (Thread.currentThread() == writer) {
+            return;
+        }
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void render(int kind, String ucid, int number, Object payload, long epochNanos) {
+        switch (kind) {
+            case HEADER:
+                BaseClass.writeHeader(out, ucid, number, timestamp(epochNanos));
+                break;
+            case FOOTER:
+                BaseClass.writeFooter(out, ucid, number, timestamp(epochNanos));
+                break;
+            case INT_ARRAY:
+                BaseClass.writeArrayInfo(out, (int[]) payload, number);
+                break;
+            case DOUBLE_ARRAY:
+                BaseClass.writeArrayInfo(out, (double[]) payload, number);
+                break;
+            case OBJECT_ARRAY:
+                BaseClass.writeArrayInfo(out, (Object[]) payload, number);
+                break;
+            case STRING_ARRAY:
+                BaseClass.writeArrayInfoBasic(out, (String[]) payload, number);
+                break;
+            case OUTPUT_WITH_TYPE:
+                BaseClass.writeOutputWithType(out, (Object[]) payload);
+                break;
+            case TEXT:
+                out.write((byte[]) payload);
+                break;
+            default:
+                throw new IllegalStateException("Unknown event kind " + kind);
+        }
+    }
+
+    private CharSequence timestamp(long epochNanos) {
+        time.setLength(0);
+        timestamps.format(epochNanos, time);
+        return time;
+    }
+
+    // wall clock in epoch nanoseconds, Instant.now() only about once a second
+    long now() {
+        Calibration base = calibration;
+        long nanoTime = System.nanoTime();
+        if (nanoTime - base.nanoTime > RECALIBRATE_NANOS) {
+            base = Calibration.now();
+            calibration = base; // racing threads just store equivalent values
+            return base.epochNanos;
+        }
+        return base.epochNanos + (nanoTime - base.nanoTime);
+    }
+
+    private static final class Event {
+        int kind;
+        String ucid;
+        int number;
+        Object payload;
+        long time;
+    }
+
+    private static final class Calibration {
+        final long epochNanos;
+        final long nanoTime;
+
+        Calibration(long epochNanos, long nanoTime) {
+            this.epochNanos = epochNanos;
+            this.nanoTime = nanoTime;
+        }
+
+        static Calibration now() {
+            Instant instant = Instant.now();
+            long nanoTime = System.nanoTime();
+            return new Calibration(instant.getEpochSecond() * 1_000_000_000L + instant.getNano(), nanoTime);
+        }
+    }
+
+    /**
+     * Writes epoch nanoseconds as LocalDateTime.toString() does in the default
+     * time zone, caching the text up to the minute for the current second
+     */
+    static final class Timestamps {
+        private final ZoneId zone = ZoneId.systemDefault();
+        private long cachedSecond = Long.MIN_VALUE;
+        private String minute; // "2025-10-12T09:41"
+        private int second;
+
+        void format(long epochNanos, StringBuilder out) {
+            long epochSecond = Math.floorDiv(epochNanos, 1_000_000_000L);
+            int nano = (int) Math.floorMod(epochNanos, 1_000_000_000L);
+            if (epochSecond != cachedSecond) {
+                ZoneOffset offset = zone.getRules().getOffset(Instant.ofEpochSecond(epochSecond));
+                LocalDateTime dateTime = LocalDateTime.ofEpochSecond(epochSecond, 0, offset);
+                minute = dateTime.withSecond(0).toString();
+                second = dateTime.getSecond();
+                cachedSecond = epochSecond;
+            }
+            out.append(minute);
+            if (second > 0 || nano > 0) {
+                out.append(':');
+                appendDigits(out, second, 2);
+                if (nano > 0) {
+                    out.append('.');
+                    if (nano % 1_000_000 == 0) {
+                        appendDigits(out, nano / 1_000_000, 3);
+                    } else if (nano % 1000 == 0) {
+                        appendDigits(out, nano / 1000, 6);
+                    } else {
+                        appendDigits(out, nano, 9);
+                    }
+                }
+            }
+        }
+
+        private static void appendDigits(StringBuilder out, int value, int width) {
+            int start = out.length();
+            for (int i = 0; i < width; i++) {
+                out.append('0');
+            }
+            for (int i = start + width - 1; i >= start; i--) {
+                out.setCharAt(i, (char) ('0' + value % 10));
+                value /= 10;
+            }
+        }
+    }
+}
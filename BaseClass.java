@@ -1,10 +1,5 @@
 package M2;
 
-import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.Iterator;
-import java.util.List;
-
 public class BaseClass {
     public enum Color {
         BLACK("\033[0;30m"),
@@ -17,18 +12,45 @@ public class BaseClass {
         WHITE("\033[0;37m");
 
         private final String code;
+        private final byte[] bytes;
 
         Color(String code) {
             this.code = code;
+            this.bytes = ConsoleWriter.ascii(code);
         }
 
         public String getCode() {
             return code;
         }
+
+        /**
+         * Cached ASCII bytes of {@link #getCode()} so writers don't re-encode the
+         * escape sequence each time
+         * 
+         * @return shared byte array, do not modify
+         */
+        byte[] getBytes() {
+            return bytes;
+        }
     }
 
     public static final String RESET = "\033[0m";
 
+    /**
+     * Where the helpers below send their output: written right away through
+     * {@link #OUT} by default, or queued for a background writer, which then
+     * carries System.out as well, see AsyncLogSink
+     */
+    static final AsyncLogSink LOG = AsyncLogSink.fromProperties();
+
+    /**
+     * Shared buffered sink every helper below writes through; each helper flushes
+     * once when its block is complete. With a queued LOG it writes to the
+     * replaced System.out, so it stays in order with the helpers.
+     */
+    protected static final ConsoleWriter OUT = LOG.mode() == AsyncLogSink.Mode.SYNC ? LOG.writer()
+            : new ConsoleWriter(System.out);
+
     /**
      * Generates a String with the original message wrapped in the ASCII of the
      * color and RESET
@@ -54,22 +76,53 @@ public class BaseClass {
     }
 
     public static void printHeader(String ucid, int problem) {
-        LocalDateTime currentDT = LocalDateTime.now();
-        System.out.println(
-                colorize(String.format("Running Problem %d for [%s] [%s]", problem, ucid, currentDT), Color.PURPLE));
+        LOG.header(ucid, problem);
+    }
+
+    public static void printFooter(String ucid, int problem) {
+        LOG.footer(ucid, problem);
+    }
+
+    // overloads
+    public static void printArrayInfo(int[] arr, int arrayNumber) {
+        LOG.arrayInfo(arr, arrayNumber);
+    }
+
+    public static void printArrayInfo(double[] arr, int arrayNumber) {
+        LOG.arrayInfo(arr, arrayNumber);
+    }
+
+    public static void printArrayInfo(Object[] arr, int arrayNumber) {
+        LOG.arrayInfo(arr, arrayNumber);
+    }
+
+    public static void printArrayInfoBasic(String[] arr, int arrayNumber) {
+        LOG.arrayInfoBasic(arr, arrayNumber);
+    }
+
+    public static void printOutputWithType(Object[] arr) {
+        LOG.outputWithType(arr);
+    }
+
+    // the helpers' output, written by LOG on whichever thread it writes from
+
+    static void writeHeader(ConsoleWriter out, String ucid, int problem, CharSequence time) {
+        out.color(Color.PURPLE).print("Running Problem ").print(problem).print(" for [").print(ucid).print("] [")
+                .print(time).write(']').reset().newline();
         switch (problem) {
             case 1:
-                System.out.println("Objective: Print out only odd values in a single line separate by commas");
+                out.print("Objective: Print out only odd values in a single line separate by commas").newline();
                 break;
             case 2:
-                System.out.println("Objective: Print out the total sum of the passed array");
+                out.print("Objective: Print out the total sum of the passed array").newline();
                 break;
             case 3:
-                System.out.println(
-                        "Objective: Make each array value positive, convert it back to the original data type, and assign it to the proper slot in the `output` array");
+                out.print(
+                        "Objective: Make each array value positive, convert it back to the original data type, and assign it to the proper slot in the `output` array")
+                        .newline();
                 break;
             case 4:
-                System.out.println(
+                out.print(
                         "Objective: \n" +
                                 "Challenge 1: Remove non-alphanumeric characters except spaces\n" +
                                 "Challenge 2: Convert text to Title Case\n" +
@@ -77,58 +130,116 @@ public class BaseClass {
                                 "Result 1-3: Assign final phrase to `placeholderForModifiedPhrase`\n" +
                                 "Challenge 4: Extract middle 3 characters (beginning starts at middle of phrase),\n" +
                                 "assign to 'placeholderForMiddleCharacters'\n" +
-                                "if not enough characters assign \"Not enough characters\"");
+                                "if not enough characters assign \"Not enough characters\"")
+                        .newline();
                 break;
             default:
                 break;
         }
     }
 
-    public static void printFooter(String ucid, int problem) {
-        LocalDateTime currentDT = LocalDateTime.now();
-        System.out.println(
-                colorize(String.format("Completed Problem %d for [%s] [%s]", problem, ucid, currentDT), Color.PURPLE));
+    static void writeFooter(ConsoleWriter out, String ucid, int problem, CharSequence time) {
+        out.color(Color.PURPLE).print("Completed Problem ").print(problem).print(" for [").print(ucid).print("] [")
+                .print(time).write(']').reset().newline();
     }
 
-    // overloads
-    public static void printArrayInfo(int[] arr, int arrayNumber) {
-        final String message = String.format("Problem %s: Original Array: %s", arrayNumber, Arrays.toString(arr));
-        System.out.println(colorize(message, Color.BLUE));
+    static void writeArrayInfo(ConsoleWriter out, int[] arr, int arrayNumber) {
+        writeArrayLabel(out, arrayNumber).write(' ');
+        if (arr == null) {
+            out.print("null");
+        } else {
+            out.write('[');
+            for (int i = 0; i < arr.length; i++) {
+                if (i > 0) {
+                    out.write(',').write(' ');
+                }
+                out.print(arr[i]);
+            }
+            out.write(']');
+        }
+        out.reset().newline();
     }
 
-    public static void printArrayInfo(double[] arr, int arrayNumber) {
-        final String message = String.format("Problem %s: Original Array: %s", arrayNumber, Arrays.toString(arr));
-        System.out.println(colorize(message, Color.BLUE));
+    static void writeArrayInfo(ConsoleWriter out, double[] arr, int arrayNumber) {
+        writeArrayLabel(out, arrayNumber).write(' ');
+        if (arr == null) {
+            out.print("null");
+        } else {
+            out.write('[');
+            for (int i = 0; i < arr.length; i++) {
+                if (i > 0) {
+                    out.write(',').write(' ');
+                }
+                out.print(arr[i]);
+            }
+            out.write(']');
+        }
+        out.reset().newline();
     }
 
-    public static void printArrayInfo(Object[] arr, int arrayNumber) {
-        final String message = String.format("Problem %s: Original Array:", arrayNumber);
-        System.out.println(colorize(message, Color.BLUE));
-        System.out.print(Color.BLUE.getCode());
-        printOutputWithType(arr);
+    static void writeArrayInfo(ConsoleWriter out, Object[] arr, int arrayNumber) {
+        writeArrayLabel(out, arrayNumber).reset().newline();
+        out.color(Color.BLUE);
+        writeOutputWithType(out, arr);
+        out.reset().newline();
+    }
 
-        System.out.println(RESET);
+    static void writeArrayInfoBasic(ConsoleWriter out, String[] arr, int arrayNumber) {
+        writeArrayLabel(out, arrayNumber).write(' ');
+        if (arr == null) {
+            out.print("null");
+        } else {
+            out.write('[');
+            for (int i = 0; i < arr.length; i++) {
+                if (i > 0) {
+                    out.write(',').write(' ');
+                }
+                out.print(arr[i]);
+            }
+            out.write(']');
+        }
+        out.reset().newline();
     }
 
-    public static void printArrayInfoBasic(String[] arr, int arrayNumber) {
-        final String message = String.format("Problem %s: Original Array: %s", arrayNumber, Arrays.toString(arr));
-        System.out.println(colorize(message, Color.BLUE));
+    // "Problem N: Original Array:" in blue, left open so the caller can append the values
+    private static ConsoleWriter writeArrayLabel(ConsoleWriter out, int arrayNumber) {
+        return out.color(Color.BLUE).print("Problem ").print(arrayNumber).print(": Original Array:");
     }
 
-    public static void printOutputWithType(Object[] arr) {
-        List<Object> list = Arrays.asList(arr); // Handles null values safely
-        Iterator<Object> iterator = list.iterator();
+    static void writeOutputWithType(ConsoleWriter out, Object[] arr) {
+        writeOutputWithType(out, arr, TypedValueCodec.tags(arr));
+    }
 
-        while (iterator.hasNext()) {
-            Object item = iterator.next();
-            if (item == null) {
-                System.out.println(colorize("Invalid value for output array", Color.RED));
+    // text view of a typed value array, switching on tags cached by TypedValueCodec.tags
+    static void writeOutputWithType(ConsoleWriter out, Object[] arr, byte[] tags) {
+        for (int i = 0; i < arr.length; i++) {
+            Object item = arr[i];
+            ValueType type = ValueType.ofTag(tags[i]);
+            if (type == null) {
+                out.color(Color.RED).print("Invalid value for output array").reset().newline();
                 continue;
             }
-            String o = String.format("%s[%s]", item, item.getClass().getSimpleName().substring(0, 1));
-            System.out.print(o);
-            if (iterator.hasNext()) {
-                System.out.print(", "); // Not last element, add separator
+            switch (type) {
+                case INTEGER:
+                    out.print(((Integer) item).intValue());
+                    break;
+                case LONG:
+                    out.print(((Long) item).longValue());
+                    break;
+                case DOUBLE:
+                    out.print(((Double) item).doubleValue());
+                    break;
+                case FLOAT:
+                    out.print(((Float) item).floatValue());
+                    break;
+                default:
+                    out.print(item);
+                    break;
+            }
+            char letter = type == ValueType.OTHER ? item.getClass().getSimpleName().charAt(0) : type.letter();
+            out.write('[').write(letter).write(']');
+            if (i < arr.length - 1) {
+                out.write(',').write(' '); // Not last element, add separator
             }
         }
     }
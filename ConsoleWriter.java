@@ -0,0 +1,233 @@
+package M2;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Buffered console sink used by the BaseClass helpers.
+ *
+ * <p>
+ * Everything is encoded into a single pre-sized byte buffer (ints, doubles,
+ * ANSI color codes and text) and handed to the underlying stream only when
+ * {@link #flush()} is called or the buffer fills up. Callers are expected to
+ * flush once per logical block (one array, one header, ...) instead of once per
+ * value.
+ * </p>
+ * <p>
+ * Note: Not thread safe, each thread should use its own instance.
+ * </p>
+ */
+public class ConsoleWriter {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final byte[] RESET_BYTES = ascii(BaseClass.RESET);
+    private static final byte[] MIN_INT = ascii(Integer.toString(Integer.MIN_VALUE));
+    private static final byte[] MIN_LONG = ascii(Long.toString(Long.MIN_VALUE));
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int count;
+    // reused for floating point values so Double.toString rules are kept without a String per call
+    private final StringBuilder scratch = new StringBuilder(32);
+
+    public ConsoleWriter(OutputStream out) {
+        this(out, DEFAULT_CAPACITY);
+    }
+
+    public ConsoleWriter(OutputStream out, int capacity) {
+        if (capacity < 64) {
+            throw new IllegalArgumentException("capacity must be at least 64 bytes");
+        }
+        this.out = out;
+        this.buffer = new byte[capacity];
+    }
+
+    static byte[] ascii(String text) {
+        byte[] bytes = new byte[text.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) text.charAt(i);
+        }
+        return bytes;
+    }
+
+    public ConsoleWriter color(BaseClass.Color color) {
+        return write(color.getBytes());
+    }
+
+    public ConsoleWriter reset() {
+        return write(RESET_BYTES);
+    }
+
+    public ConsoleWriter newline() {
+        return write('\n');
+    }
+
+    public ConsoleWriter write(char c) {
+        if (c < 0x80) {
+            ensure(1);
+            buffer[count++] = (byte) c;
+            return this;
+        }
+        return print(String.valueOf(c));
+    }
+
+    public ConsoleWriter write(byte[] bytes) {
+        return write(bytes, 0, bytes.length);
+    }
+
+    public ConsoleWriter write(byte[] bytes, int offset, int length) {
+        if (length > buffer.length) {
+            drain();
+            try {
+                out.write(bytes, offset, length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return this;
+        }
+        ensure(length);
+        System.arraycopy(bytes, offset, buffer, count, length);
+        count += length;
+        return this;
+    }
+
+    /**
+     * Writes the text as UTF-8 straight into the buffer
+     *
+     * @param text text to write, "null" when null (same as PrintStream)
+     * @return this writer
+     */
+    public ConsoleWriter print(CharSequence text) {
+        if (text == null) {
+            text = "null";
+        }
+        final int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                ensure(1);
+                buffer[count++] = (byte) c;
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer[count++] = (byte) (0xC0 | (c >> 6));
+                buffer[count++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, text.charAt(++i));
+                ensure(4);
+                buffer[count++] = (byte) (0xF0 | (cp >> 18));
+                buffer[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                buffer[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                ensure(1);
+                buffer[count++] = '?'; // unpaired surrogate, same replacement the JDK encoder uses
+            } else {
+                ensure(3);
+                buffer[count++] = (byte) (0xE0 | (c >> 12));
+                buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[count++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    public ConsoleWriter print(int value) {
+        if (value == Integer.MIN_VALUE) {
+            return write(MIN_INT);
+        }
+        return print((long) value);
+    }
+
+    public ConsoleWriter print(long value) {
+        if (value == Long.MIN_VALUE) {
+            return write(MIN_LONG);
+        }
+        ensure(20);
+        if (value < 0) {
+            buffer[count++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int pos = count + digits;
+        count = pos;
+        do {
+            buffer[--pos] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        return this;
+    }
+
+    /**
+     * Writes the value exactly as Double.toString would
+     *
+     * @param value value to write
+     * @return this writer
+     */
+    public ConsoleWriter print(double value) {
+        // whole numbers (the common case for counters and generated data) skip the JDK conversion
+        if (value == (long) value && Math.abs(value) < 1e7 && (value != 0 || 1 / value > 0)) {
+            print((long) value);
+            ensure(2);
+            buffer[count++] = '.';
+            buffer[count++] = '0';
+            return this;
+        }
+        scratch.setLength(0);
+        scratch.append(value);
+        return print(scratch);
+    }
+
+    /**
+     * Writes the value exactly as Float.toString would
+     *
+     * @param value value to write
+     * @return this writer
+     */
+    public ConsoleWriter print(float value) {
+        scratch.setLength(0);
+        scratch.append(value);
+        return print(scratch);
+    }
+
+    public ConsoleWriter print(Object value) {
+        if (value instanceof CharSequence) {
+            return print((CharSequence) value);
+        }
+        return print(String.valueOf(value));
+    }
+
+    /**
+     * Hands everything buffered so far to the underlying stream and flushes it
+     */
+    public void flush() {
+        drain();
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void ensure(int bytes) {
+        if (count + bytes > buffer.length) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        if (count == 0) {
+            return;
+        }
+        try {
+            out.write(buffer, 0, count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        count = 0;
+    }
+}
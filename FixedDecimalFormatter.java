@@ -0,0 +1,197 @@
+package M2;
+
+import java.util.Locale;
+
+/**
+ * Formats doubles with exactly 2 decimal places, same text as
+ * {@code String.format("%.2f", value)}
+ *
+ * <p>
+ * The JDK rounds the shortest decimal representation of the double HALF_UP
+ * (so 1.005 becomes "1.01" even though the double is slightly below 1.005).
+ * The fast path reproduces that with integer math on the bits of the double:
+ * the fraction is rounded exactly, and a value whose shortest representation is
+ * the tie itself (1.005, 2.675, ...) is detected by checking whether the tie
+ * converts back to the same double.
+ * </p>
+ * <p>
+ * Like String.format, the char and String versions use the default FORMAT
+ * locale's zero digit and decimal separator (read off String.format's own
+ * output, and read again when the default locale changes). The byte version
+ * always writes ASCII digits and '.', like Locale.ROOT.
+ * </p>
+ * <p>
+ * Note: Values with a magnitude of 2^40 or more, NaN and infinities fall back
+ * to String.format (these are the only calls that allocate).
+ * </p>
+ */
+public final class FixedDecimalFormatter {
+    /**
+     * Longest possible output ("-" + 309 integer digits + ".00"), size caller
+     * buffers with this when the input range is unknown
+     */
+    public static final int MAX_LENGTH = 313;
+    // "-" + 13 integer digits + ".00", the longest fast path output
+    private static final int FAST_LENGTH = 17;
+
+    private static final double FAST_LIMIT = 0x1p40;
+    // below this the value rounds to 0.00 and can't be the double closest to 0.005
+    private static final double ZERO_LIMIT = 0x1p-9;
+    private static final long SIGNIFICAND_MASK = 0x000FFFFFFFFFFFFFL;
+    private static final long IMPLICIT_BIT = 0x0010000000000000L;
+
+    private static volatile Symbols symbols = new Symbols(Locale.getDefault(Locale.Category.FORMAT));
+
+    private FixedDecimalFormatter() {
+    }
+
+    public static String format(double value) {
+        final Symbols symbols = symbols();
+        final double abs = Math.abs(value);
+        if (!(abs < FAST_LIMIT) || !symbols.fast) {
+            return String.format(symbols.locale, "%.2f", value);
+        }
+        char[] chars = new char[FAST_LENGTH];
+        return new String(chars, 0, formatFast(value, abs, symbols, chars, 0));
+    }
+
+    /**
+     * Writes the value with 2 decimals into dst
+     *
+     * @param value  value to format
+     * @param dst    destination, needs 17 free chars for |value| &lt; 2^40 or
+     *               {@link #MAX_LENGTH} in general
+     * @param offset first index to write to
+     * @return number of chars written
+     */
+    public static int format(double value, char[] dst, int offset) {
+        final Symbols symbols = symbols();
+        final double abs = Math.abs(value);
+        if (!(abs < FAST_LIMIT) || !symbols.fast) {
+            String slow = String.format(symbols.locale, "%.2f", value);
+            slow.getChars(0, slow.length(), dst, offset);
+            return slow.length();
+        }
+        return formatFast(value, abs, symbols, dst, offset);
+    }
+
+    private static int formatFast(double value, double abs, Symbols symbols, char[] dst, int offset) {
+        final long bits = Double.doubleToRawLongBits(value);
+        long scaled = centsOf(abs, bits); // |value| * 100 rounded
+        int pos = offset;
+        if (bits < 0) {
+            dst[pos++] = '-'; // the JDK keeps the sign of -0.0 and of negatives that round to zero
+        }
+        long intPart = scaled / 100;
+        int cents = (int) (scaled % 100);
+        final char zero = symbols.zero;
+        int digits = digitCount(intPart);
+        int end = pos + digits;
+        do {
+            dst[--end] = (char) (zero + intPart % 10);
+            intPart /= 10;
+        } while (intPart != 0);
+        pos += digits;
+        dst[pos++] = symbols.point;
+        dst[pos++] = (char) (zero + cents / 10);
+        dst[pos++] = (char) (zero + cents % 10);
+        return pos - offset;
+    }
+
+    /**
+     * Byte (ASCII) version of {@link #format(double, char[], int)}, same text
+     * as {@code String.format(Locale.ROOT, "%.2f", value)} whatever the
+     * default locale
+     *
+     * @param value  value to format
+     * @param dst    destination, same size rules as the char version
+     * @param offset first index to write to
+     * @return number of bytes written
+     */
+    public static int format(double value, byte[] dst, int offset) {
+        final double abs = Math.abs(value);
+        if (!(abs < FAST_LIMIT)) {
+            String slow = String.format(Locale.ROOT, "%.2f", value);
+            for (int i = 0; i < slow.length(); i++) {
+                dst[offset + i] = (byte) slow.charAt(i);
+            }
+            return slow.length();
+        }
+        final long bits = Double.doubleToRawLongBits(value);
+        long scaled = centsOf(abs, bits);
+        int pos = offset;
+        if (bits < 0) {
+            dst[pos++] = '-';
+        }
+        long intPart = scaled / 100;
+        int cents = (int) (scaled % 100);
+        int digits = digitCount(intPart);
+        int end = pos + digits;
+        do {
+            dst[--end] = (byte) ('0' + intPart % 10);
+            intPart /= 10;
+        } while (intPart != 0);
+        pos += digits;
+        dst[pos++] = '.';
+        dst[pos++] = (byte) ('0' + cents / 10);
+        dst[pos++] = (byte) ('0' + cents % 10);
+        return pos - offset;
+    }
+
+    // abs * 100 rounded HALF_UP the way the JDK's decimal digits would be, abs < 2^40
+    private static long centsOf(double abs, long bits) {
+        if (abs < ZERO_LIMIT) {
+            return 0;
+        }
+        // abs is normal here: abs = significand * 2^-shift with shift in [13, 61]
+        final long significand = (bits & SIGNIFICAND_MASK) | IMPLICIT_BIT;
+        final int shift = 52 - Math.getExponent(abs);
+        final long intPart = significand >>> shift;
+        final long fraction = significand & ((1L << shift) - 1);
+        final long scaledFraction = fraction * 100; // fraction < 2^53, fits in a long
+        final long cents = scaledFraction >>> shift;
+        final long remainder = scaledFraction & ((1L << shift) - 1);
+        final long floor = intPart * 100 + cents;
+        boolean up = remainder >= (1L << (shift - 1));
+        if (!up && (2 * floor + 1) / 200.0 == abs) {
+            up = true; // shortest representation is the tie (e.g. 1.005), which rounds up
+        }
+        return up ? floor + 1 : floor;
+    }
+
+    private static Symbols symbols() {
+        final Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        Symbols current = symbols;
+        if (!current.locale.equals(locale)) {
+            current = new Symbols(locale);
+            symbols = current;
+        }
+        return current;
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    // what String.format("%.2f") writes for a locale, read off its own output; the minus is always '-'
+    private static final class Symbols {
+        final Locale locale;
+        final char zero;
+        final char point;
+        final boolean fast; // false when the output isn't "-", digit, point, digit: always use String.format
+
+        Symbols(Locale locale) {
+            this.locale = locale;
+            String sample = String.format(locale, "%.1f", -1.5);
+            fast = sample.length() == 4 && sample.charAt(0) == '-' && Character.digit(sample.charAt(1), 10) == 1
+                    && sample.charAt(3) == sample.charAt(1) + 4;
+            zero = fast ? (char) (sample.charAt(1) - 1) : '0';
+            point = fast ? sample.charAt(2) : '.';
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package M3;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Applies + or - to two numeric columns of every row of a CSV file
+ *
+ * <p>
+ * The first line is the header; columns are named by header text or by
+ * 1-based number. Rows are read in blocks: the two fields of each row are cut
+ * out on the reading thread, then fork-join tasks over 4096-row chunks parse
+ * them into scaled-long columns ({@link ScaledDecimal}), add or subtract the
+ * columns, and format each answer with the calculator's decimal rule for its
+ * own row. While one block is computed the next is read, and finished blocks
+ * are written in order, so memory stays at two blocks for any file size. Rows
+ * that don't fit a long take the BigDecimal path of
+ * {@link CommandLineCalculator#calculate(String, String, String)}, so every
+ * answer is the one the calculator prints.
+ * </p>
+ * <p>
+ * The output is one CSV column, headed "&lt;left&gt; &lt;op&gt; &lt;right&gt;",
+ * with a line per input row. A row that can't be calculated (missing field,
+ * bad number) gets an empty line and is reported on System.err with its line
+ * number.
+ * </p>
+ * <p>
+ * Usage: java M3.CalculatorColumns &lt;csv|-&gt; &lt;leftColumn&gt; &lt;+|-&gt; &lt;rightColumn&gt; [output|-] [blockRows]
+ * (rows/s and peak heap go to stderr)
+ * </p>
+ */
+public class CalculatorColumns {
+    public static final int DEFAULT_BLOCK_ROWS = 1 << 18;
+    static final int CHUNK_ROWS = 4096;
+    private static final int IO_BUFFER = 1 << 20;
+
+    private final String leftColumn;
+    private final String rightColumn;
+    private final String op;
+    private final int blockRows;
+
+    /**
+     * @param leftColumn  header text or 1-based number of the left column
+     * @param op          "+" or "-"
+     * @param rightColumn header text or 1-based number of the right column
+     * @param blockRows   rows per block
+     */
+    public CalculatorColumns(String leftColumn, String op, String rightColumn, int blockRows) {
+        if (!op.equals("+") && !op.equals("-")) {
+            throw new IllegalArgumentException(CommandLineCalculator.INVALID_OPERATOR);
+        }
+        if (blockRows < 1) {
+            throw new IllegalArgumentException("blockRows must be positive");
+        }
+        this.leftColumn = leftColumn;
+        this.rightColumn = rightColumn;
+        this.op = op;
+        this.blockRows = blockRows;
+    }
+
+    /**
+     * Calculates every row of in
+     *
+     * @param in  UTF-8 CSV with a header line, not closed
+     * @param out receives the UTF-8 answers, flushed but not closed
+     * @return row counts, timing and peak heap of the run
+     * @throws IOException when reading or writing fails, or a column isn't
+     *                     in the header
+     */
+    public Stats run(InputStream in, OutputStream out) throws IOException {
+        final long start = System.nanoTime();
+        final List<MemoryPoolMXBean> heapPools = heapPools();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        final Stats stats = new Stats();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), IO_BUFFER);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), IO_BUFFER);
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IOException("Empty CSV, expected a header line");
+        }
+        List<String> names = Csv.parse(header);
+        int left = column(names, leftColumn);
+        int right = column(names, rightColumn);
+        writer.write(Csv.quote(names.get(left).trim() + " " + op + " " + names.get(right).trim()));
+        writer.write('\n');
+
+        Block[] blocks = { new Block(blockRows), new Block(blockRows) };
+        int current = 0;
+        long nextLine = 2;
+        nextLine = fill(reader, blocks[current], left, right, nextLine);
+        ForkJoinTask<Void> running = blocks[current].rows > 0 ? submit(blocks[current]) : null;
+        while (running != null) {
+            Block block = blocks[current];
+            Block next = blocks[1 - current];
+            // read the next block while this one is computed
+            next.rows = 0;
+            if (block.rows == blockRows) {
+                nextLine = fill(reader, next, left, right, nextLine);
+            }
+            running.join();
+            block.writeTo(writer, stats);
+            current = 1 - current;
+            running = next.rows > 0 ? submit(next) : null;
+        }
+        writer.flush();
+        stats.nanos = System.nanoTime() - start;
+        for (MemoryPoolMXBean pool : heapPools) {
+            stats.peakHeap += pool.getPeakUsage().getUsed();
+        }
+        return stats;
+    }
+
+    private ForkJoinTask<Void> submit(Block block) {
+        int chunks = (block.rows + CHUNK_ROWS - 1) / CHUNK_ROWS;
+        return ForkJoinPool.commonPool().submit(new ChunkTask(block, 0, chunks, op.equals("-")));
+    }
+
+    // reads up to block.length rows, cutting out the two fields
+    private static long fill(BufferedReader reader, Block block, int left, int right, long firstLine)
+            throws IOException {
+        block.firstLine = firstLine;
+        block.rows = 0;
+        String line;
+        while (block.rows < block.leftText.length && (line = reader.readLine()) != null) {
+            int row = block.rows++;
+            block.errors[row] = null;
+            if (line.indexOf('"') == -1) {
+                block.leftText[row] = Csv.field(line, left);
+                block.rightText[row] = Csv.field(line, right);
+            } else {
+                try {
+                    List<String> fields = Csv.parse(line);
+                    block.leftText[row] = left < fields.size() ? fields.get(left).trim() : null;
+                    block.rightText[row] = right < fields.size() ? fields.get(right).trim() : null;
+                } catch (IllegalArgumentException e) {
+                    block.errors[row] = e.getMessage();
+                    continue;
+                }
+            }
+            if (block.leftText[row] == null || block.rightText[row] == null) {
+                block.errors[row] = "Missing column " + (block.leftText[row] == null ? left + 1 : right + 1);
+            }
+        }
+        return firstLine + block.rows;
+    }
+
+    private static int column(List<String> names, String column) throws IOException {
+        for (int i = 0; i < names.size(); i++) {
+            if (names.get(i).trim().equals(column)) {
+                return i;
+            }
+        }
+        try {
+            int number = Integer.parseInt(column);
+            if (number >= 1 && number <= names.size()) {
+                return number - 1;
+            }
+        } catch (NumberFormatException e) {
+            // not a number either
+        }
+        throw new IOException("No column " + column + " in header " + names);
+    }
+
+    private static List<MemoryPoolMXBean> heapPools() {
+        List<MemoryPoolMXBean> pools = ManagementFactory.getMemoryPoolMXBeans();
+        pools.removeIf(pool -> pool.getType() != MemoryType.HEAP || !pool.isValid());
+        return pools;
+    }
+
+    // one block of rows, its columns as parallel arrays, reused for every block
+    private static final class Block {
+        final String[] leftText;
+        final String[] rightText;
+        final String[] errors;
+        final boolean[] fast;
+        final long[] leftUnscaled;
+        final long[] rightUnscaled;
+        final long[] resultUnscaled;
+        final int[] leftScale;
+        final int[] rightScale;
+        final int[] resultScale;
+        final int[] places;
+        final StringBuilder[] chunks;
+        int rows;
+        long firstLine;
+
+        Block(int capacity) {
+            leftText = new String[capacity];
+            rightText = new String[capacity];
+            errors = new String[capacity];
+            fast = new boolean[capacity];
+            leftUnscaled = new long[capacity];
+            rightUnscaled = new long[capacity];
+            resultUnscaled = new long[capacity];
+            leftScale = new int[capacity];
+            rightScale = new int[capacity];
+            resultScale = new int[capacity];
+            places = new int[capacity];
+            chunks = new StringBuilder[(capacity + CHUNK_ROWS - 1) / CHUNK_ROWS];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = new StringBuilder(CHUNK_ROWS * 16);
+            }
+        }
+
+        void compute(int chunk, boolean subtract) {
+            final int from = chunk * CHUNK_ROWS;
+            final int to = Math.min(rows, from + CHUNK_ROWS);
+            final boolean canFormat = ScaledDecimal.canFormat();
+            // parse the two columns
+            for (int row = from; row < to; row++) {
+                fast[row] = false;
+                if (errors[row] != null || !canFormat) {
+                    continue;
+                }
+                ScaledDecimal left = ScaledDecimal.parse(leftText[row]);
+                ScaledDecimal right = left == null ? null : ScaledDecimal.parse(rightText[row]);
+                if (right != null) {
+                    fast[row] = true;
+                    leftUnscaled[row] = left.unscaled();
+                    leftScale[row] = left.scale();
+                    rightUnscaled[row] = subtract ? -right.unscaled() : right.unscaled();
+                    rightScale[row] = right.scale();
+                    places[row] = Math.max(left.decimals(), right.decimals());
+                }
+            }
+            // apply the operator
+            for (int row = from; row < to; row++) {
+                if (fast[row]) {
+                    int scale = Math.max(leftScale[row], rightScale[row]);
+                    long sum = ScaledDecimal.sum(leftUnscaled[row], leftScale[row], rightUnscaled[row],
+                            rightScale[row], scale);
+                    resultUnscaled[row] = sum;
+                    resultScale[row] = scale;
+                    fast[row] = sum != Long.MIN_VALUE;
+                }
+            }
+            // format, with the BigDecimal path for rows that didn't fit
+            StringBuilder out = chunks[chunk];
+            out.setLength(0);
+            for (int row = from; row < to; row++) {
+                if (fast[row]) {
+                    ScaledDecimal.format(resultUnscaled[row], resultScale[row], places[row], out);
+                } else if (errors[row] == null) {
+                    try {
+                        out.append(CommandLineCalculator.calculate(leftText[row], subtract ? "-" : "+",
+                                rightText[row]));
+                    } catch (IllegalArgumentException e) {
+                        errors[row] = e.getMessage();
+                    }
+                }
+                out.append('\n');
+            }
+        }
+
+        void writeTo(Writer writer, Stats stats) throws IOException {
+            int chunkCount = (rows + CHUNK_ROWS - 1) / CHUNK_ROWS;
+            for (int i = 0; i < chunkCount; i++) {
+                writer.append(chunks[i]);
+            }
+            stats.rows += rows;
+            for (int row = 0; row < rows; row++) {
+                if (errors[row] != null) {
+                    stats.errors++;
+                    System.err.println("Line " + (firstLine + row) + ": " + errors[row]);
+                }
+            }
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Block block;
+        private final int from;
+        private final int to;
+        private final boolean subtract;
+
+        ChunkTask(Block block, int from, int to, boolean subtract) {
+            this.block = block;
+            this.from = from;
+            this.to = to;
+            this.subtract = subtract;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                block.compute(from, subtract);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            ChunkTask left = new ChunkTask(block, from, mid, subtract);
+            left.fork();
+            new ChunkTask(block, mid, to, subtract).compute();
+            left.join();
+        }
+    }
+
+    /**
+     * Totals of one run
+     */
+    public static class Stats {
+        public long rows;
+        public long errors;
+        public long nanos;
+        public long peakHeap; // sum of the heap pools' peaks
+
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+            return String.format("%,d rows, %,d errors in %.3f s (%,.0f rows/s), peak heap %,d MB", rows, errors,
+                    seconds, rows / seconds, peakHeap >> 20);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.out.println("Usage: java M3.CalculatorColumns <csv|-> <leftColumn> <+|-> <rightColumn> "
+                    + "[output|-] [blockRows]");
+            return;
+        }
+        int blockRows = args.length > 5 ? Integer.parseInt(args[5]) : DEFAULT_BLOCK_ROWS;
+        CalculatorColumns columns = new CalculatorColumns(args[1], args[2], args[3], blockRows);
+        InputStream in = args[0].equals("-") ? System.in : Files.newInputStream(Paths.get(args[0]));
+        OutputStream out = args.length > 4 && !args[4].equals("-") ? Files.newOutputStream(Paths.get(args[4]))
+                : System.out;
+        try {
+            System.err.println(columns.run(in, out));
+        } finally {
+            if (in != System.in) {
+                in.close();
+            }
+            if (out != System.out) {
+                out.close();
+            }
+        }
+    }
+}
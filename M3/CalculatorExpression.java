@@ -0,0 +1,408 @@
+package M3;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A CommandLineCalculator expression compiled once into a flat evaluation plan
+ *
+ * <p>
+ * Expressions use numbers (anything BigDecimal accepts, e.g. 1.5 or 2e3),
+ * variables (letters, digits and '_', starting with a letter or '_'), the
+ * operators + - * / % with the usual precedence and left to right grouping,
+ * unary + and -, and parentheses. {@link #compile(String)} tokenizes and parses
+ * the text by precedence climbing straight into postfix code, folding every
+ * operation whose operands are constants as it goes, so "2 * (1.5 - 0.25) * x"
+ * becomes "push 2.50, push x, multiply". Evaluating then just runs the code on
+ * a small BigDecimal stack, with no parsing.
+ * </p>
+ * <p>
+ * The answer keeps the calculator's decimal rule: as many decimals as the
+ * number with the most, counting the literals in the text and the values the
+ * variables are given, rounded half even. Division is carried to 34
+ * significant digits (MathContext.DECIMAL128) before that rounding; % is
+ * BigDecimal.remainder, which takes the sign of the left operand like Java's
+ * %.
+ * </p>
+ * <p>
+ * Note: A division or remainder by a constant zero isn't folded, it fails
+ * when evaluated, like one by a variable that is zero. Parentheses and unary
+ * signs nest at most {@value #MAX_NESTING} deep, deeper text is rejected
+ * like any other syntax error instead of overflowing the parser's stack.
+ * </p>
+ */
+public final class CalculatorExpression {
+    static final MathContext DIVISION = MathContext.DECIMAL128;
+    static final int MAX_NESTING = 256;
+
+    // code: opcode in the low 8 bits, constant or variable index above
+    private static final int CONST = 0;
+    private static final int VAR = 1;
+    private static final int NEG = 2;
+    private static final int ADD = 3;
+    private static final int SUB = 4;
+    private static final int MUL = 5;
+    private static final int DIV = 6;
+    private static final int REM = 7;
+
+    private final String source;
+    private final int[] code;
+    private final BigDecimal[] constants;
+    private final String[] variables;
+    private final int literalDecimals;
+    private final int maxDepth;
+
+    private CalculatorExpression(String source, int[] code, BigDecimal[] constants, String[] variables,
+            int literalDecimals, int maxDepth) {
+        this.source = source;
+        this.code = code;
+        this.constants = constants;
+        this.variables = variables;
+        this.literalDecimals = literalDecimals;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * @param source expression text, e.g. "(a + b) * 2.5"
+     * @return the compiled expression
+     * @throws IllegalArgumentException when the text isn't a valid expression
+     */
+    public static CalculatorExpression compile(String source) {
+        return new Compiler(source).compile();
+    }
+
+    /**
+     * @return number of distinct variables
+     */
+    public int variableCount() {
+        return variables.length;
+    }
+
+    /**
+     * @return name of variable i, variables are numbered in order of first use
+     */
+    public String variable(int i) {
+        return variables[i];
+    }
+
+    /**
+     * @return number of instructions left after constant folding
+     */
+    public int instructionCount() {
+        return code.length;
+    }
+
+    /**
+     * @return most decimals of any number literal in the text
+     */
+    public int literalDecimals() {
+        return literalDecimals;
+    }
+
+    /**
+     * Evaluates the plan
+     *
+     * @param values one value per variable, in {@link #variable(int)} order
+     * @return the exact result, divisions rounded to DECIMAL128
+     * @throws ArithmeticException on a division or remainder by zero
+     */
+    public BigDecimal value(BigDecimal... values) {
+        if (values.length != variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " values but got " + values.length);
+        }
+        BigDecimal[] stack = new BigDecimal[maxDepth];
+        int top = -1;
+        for (int instruction : code) {
+            int opcode = instruction & 0xFF;
+            switch (opcode) {
+                case CONST:
+                    stack[++top] = constants[instruction >>> 8];
+                    break;
+                case VAR:
+                    stack[++top] = values[instruction >>> 8];
+                    break;
+                case NEG:
+                    stack[top] = stack[top].negate();
+                    break;
+                default:
+                    BigDecimal right = stack[top--];
+                    stack[top] = apply(opcode, stack[top], right);
+                    break;
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Evaluates the plan and formats the answer like CommandLineCalculator
+     *
+     * @param values one number per variable, in {@link #variable(int)} order
+     * @return the formatted answer
+     * @throws IllegalArgumentException with
+     *                                  {@link CommandLineCalculator#INVALID_INPUT}
+     *                                  as the message when a value isn't a
+     *                                  number or the math fails (division by
+     *                                  zero), or when the value count is wrong
+     */
+    public String evaluate(String... values) {
+        if (values.length != variables.length) {
+            throw new IllegalArgumentException("Expected " + variables.length + " values but got " + values.length);
+        }
+        try {
+            BigDecimal[] numbers = new BigDecimal[values.length];
+            int decimals = literalDecimals;
+            for (int i = 0; i < values.length; i++) {
+                numbers[i] = new BigDecimal(values[i]);
+                decimals = Math.max(decimals, CommandLineCalculator.decimals(values[i]));
+            }
+            return CommandLineCalculator.format(decimals).format(value(numbers));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(CommandLineCalculator.INVALID_INPUT, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private static BigDecimal apply(int opcode, BigDecimal left, BigDecimal right) {
+        switch (opcode) {
+            case ADD:
+                return left.add(right);
+            case SUB:
+                return left.subtract(right);
+            case MUL:
+                return left.multiply(right);
+            case DIV:
+                return left.divide(right, DIVISION);
+            case REM:
+                return left.remainder(right);
+            default:
+                throw new IllegalStateException("Unknown opcode " + opcode);
+        }
+    }
+
+    // tokenizer and precedence climbing parser, emitting postfix code with constant folding
+    private static final class Compiler {
+        private static final int END = 0;
+        private static final int NUMBER = 1;
+        private static final int NAME = 2;
+        private static final int SYMBOL = 3;
+
+        private final String text;
+        private int pos;
+        private int token;
+        private int tokenStart;
+        private String tokenText;
+
+        private int[] code = new int[16];
+        private int size;
+        private final List<BigDecimal> constants = new ArrayList<>();
+        private final List<String> variables = new ArrayList<>();
+        private int decimals;
+        private int depth;
+        private int maxDepth;
+        private int nesting; // open parentheses and unary signs, bounds the parser's recursion
+
+        Compiler(String text) {
+            this.text = text;
+        }
+
+        CalculatorExpression compile() {
+            next();
+            expression(1);
+            if (token != END) {
+                throw error("unexpected '" + tokenText + "'");
+            }
+            return new CalculatorExpression(text, Arrays.copyOf(code, size), constants.toArray(new BigDecimal[0]),
+                    variables.toArray(new String[0]), decimals, Math.max(1, maxDepth));
+        }
+
+        // operand, then any operators binding at least as tight as minPrecedence
+        private void expression(int minPrecedence) {
+            unary();
+            while (token == SYMBOL) {
+                int opcode = binary(tokenText.charAt(0));
+                int precedence = opcode == ADD || opcode == SUB ? 1 : 2;
+                if (opcode < 0 || precedence < minPrecedence) {
+                    return;
+                }
+                next();
+                expression(precedence + 1); // left to right: the right side only takes tighter operators
+                emitBinary(opcode);
+            }
+        }
+
+        private void unary() {
+            if (token == SYMBOL && tokenText.equals("-")) {
+                enter();
+                next();
+                unary();
+                emitNegate();
+                nesting--;
+            } else if (token == SYMBOL && tokenText.equals("+")) {
+                enter();
+                next();
+                unary();
+                nesting--;
+            } else {
+                primary();
+            }
+        }
+
+        private void primary() {
+            if (token == NUMBER) {
+                BigDecimal number;
+                try {
+                    number = new BigDecimal(tokenText);
+                } catch (NumberFormatException e) {
+                    throw error("bad number '" + tokenText + "'");
+                }
+                decimals = Math.max(decimals, CommandLineCalculator.decimals(tokenText));
+                pushConstant(number);
+                next();
+            } else if (token == NAME) {
+                int index = variables.indexOf(tokenText);
+                if (index == -1) {
+                    index = variables.size();
+                    variables.add(tokenText);
+                }
+                emit(VAR | index << 8, 1);
+                next();
+            } else if (token == SYMBOL && tokenText.equals("(")) {
+                enter();
+                next();
+                expression(1);
+                if (token != SYMBOL || !tokenText.equals(")")) {
+                    throw error("expected ')'");
+                }
+                nesting--;
+                next();
+            } else {
+                throw error(token == END ? "unexpected end" : "unexpected '" + tokenText + "'");
+            }
+        }
+
+        private void enter() {
+            if (++nesting > MAX_NESTING) {
+                throw error("too deeply nested");
+            }
+        }
+
+        private static int binary(char c) {
+            switch (c) {
+                case '+':
+                    return ADD;
+                case '-':
+                    return SUB;
+                case '*':
+                    return MUL;
+                case '/':
+                    return DIV;
+                case '%':
+                    return REM;
+                default:
+                    return -1;
+            }
+        }
+
+        // a postfix operand ending in a push is that single push, so two pushes at the end are the two operands
+        private void emitBinary(int opcode) {
+            if (size >= 2 && (code[size - 1] & 0xFF) == CONST && (code[size - 2] & 0xFF) == CONST) {
+                BigDecimal right = constants.get(constants.size() - 1);
+                BigDecimal left = constants.get(constants.size() - 2);
+                try {
+                    BigDecimal folded = apply(opcode, left, right);
+                    constants.remove(constants.size() - 1);
+                    constants.remove(constants.size() - 1);
+                    size -= 2;
+                    depth -= 2;
+                    pushConstant(folded);
+                    return;
+                } catch (ArithmeticException e) {
+                    // division by zero: keep it for evaluation to report
+                }
+            }
+            emit(opcode, -1);
+        }
+
+        private void emitNegate() {
+            if (size >= 1 && (code[size - 1] & 0xFF) == CONST) {
+                int last = constants.size() - 1;
+                constants.set(last, constants.get(last).negate());
+                return;
+            }
+            emit(NEG, 0);
+        }
+
+        private void pushConstant(BigDecimal value) {
+            emit(CONST | constants.size() << 8, 1);
+            constants.add(value);
+        }
+
+        private void emit(int instruction, int stackChange) {
+            if (size == code.length) {
+                code = Arrays.copyOf(code, size * 2);
+            }
+            code[size++] = instruction;
+            depth += stackChange;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        private void next() {
+            final int length = text.length();
+            while (pos < length && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            tokenStart = pos;
+            if (pos == length) {
+                token = END;
+                tokenText = "";
+                return;
+            }
+            char c = text.charAt(pos);
+            if (isDigit(c) || c == '.') {
+                while (pos < length && (isDigit(text.charAt(pos)) || text.charAt(pos) == '.')) {
+                    pos++;
+                }
+                // exponent only when digits follow, "2e" stays a number and a name
+                if (pos < length && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E')) {
+                    int digits = pos + 1;
+                    if (digits < length && (text.charAt(digits) == '+' || text.charAt(digits) == '-')) {
+                        digits++;
+                    }
+                    if (digits < length && isDigit(text.charAt(digits))) {
+                        pos = digits;
+                        while (pos < length && isDigit(text.charAt(pos))) {
+                            pos++;
+                        }
+                    }
+                }
+                token = NUMBER;
+            } else if (Character.isLetter(c) || c == '_') {
+                while (pos < length && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '_')) {
+                    pos++;
+                }
+                token = NAME;
+            } else if ("+-*/%()".indexOf(c) != -1) {
+                pos++;
+                token = SYMBOL;
+            } else {
+                throw error("unexpected '" + c + "'");
+            }
+            tokenText = text.substring(tokenStart, pos);
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private IllegalArgumentException error(String detail) {
+            return new IllegalArgumentException("Invalid expression: " + detail + " at position " + (tokenStart + 1));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package M3;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Evaluates CommandLineCalculator expressions, one per line
+ *
+ * <p>
+ * Each line is what the calculator takes on its command line: {@code <num1>
+ * <operator> <num2>} separated by spaces or tabs, or a whole expression such as
+ * "(1.5 + 2) * 3", evaluated with {@link CommandLineCalculator#calculate}, so
+ * the answers use the same BigDecimal math and decimal places as the single
+ * expression mode. Given an expression with variables instead, it is compiled
+ * once and each line holds just the values of its variables, in order of
+ * first use, e.g. "a * (b + 1)" with lines like "2.5 3"; an expression
+ * without variables is rejected, as its lines would have nothing to hold.
+ * Input is read through a 1 MB buffer and each answer is written on its own
+ * line through a 1 MB buffered writer. A line that can't be evaluated writes
+ * "Line N: " and the calculator's message instead and the stream goes on;
+ * blank lines are skipped.
+ * </p>
+ * <p>
+ * Usage: java M3.CalculatorStream [input|-] [output|-] ["expression"]
+ * (defaults: stdin, stdout; the expressions/s summary goes to stderr)
+ * </p>
+ */
+public final class CalculatorStream {
+    public static final int BUFFER_SIZE = 1 << 20;
+
+    private CalculatorStream() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        InputStream in = args.length > 0 && !args[0].equals("-") ? Files.newInputStream(Paths.get(args[0])) : System.in;
+        OutputStream out = args.length > 1 && !args[1].equals("-") ? Files.newOutputStream(Paths.get(args[1]))
+                : System.out;
+        try {
+            Stats stats = args.length > 2 ? run(in, out, CalculatorExpression.compile(args[2])) : run(in, out);
+            System.err.println(stats);
+        } finally {
+            if (in != System.in) {
+                in.close();
+            }
+            if (out != System.out) {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Evaluates every expression line of in
+     *
+     * @param in  UTF-8 expression lines, not closed
+     * @param out receives the UTF-8 answers, flushed but not closed
+     * @return counts and timing of the run
+     * @throws IOException when reading or writing fails
+     */
+    public static Stats run(InputStream in, OutputStream out) throws IOException {
+        return run(in, out, null);
+    }
+
+    /**
+     * Evaluates expression once for every line of values in
+     *
+     * @param in         UTF-8 lines of whitespace separated values, one per
+     *                   variable of expression, not closed; or expression
+     *                   lines when expression is null
+     * @param out        receives the UTF-8 answers, flushed but not closed
+     * @param expression compiled expression, or null
+     * @return counts and timing of the run
+     * @throws IOException              when reading or writing fails
+     * @throws IllegalArgumentException when expression has no variables
+     */
+    public static Stats run(InputStream in, OutputStream out, CalculatorExpression expression) throws IOException {
+        if (expression != null && expression.variableCount() == 0) {
+            throw new IllegalArgumentException("The expression has no variables, evaluate it without a stream");
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        String[] tokens = new String[expression == null ? 3 : expression.variableCount()];
+        Stats stats = new Stats();
+        long start = System.nanoTime();
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            int count = split(line, tokens);
+            if (count == 0) {
+                continue;
+            }
+            stats.expressions++;
+            try {
+                if (expression != null) {
+                    if (count != tokens.length) {
+                        throw new IllegalArgumentException("Expected " + tokens.length + " values");
+                    }
+                    writer.write(expression.evaluate(tokens));
+                } else if (count == 3) {
+                    writer.write(CommandLineCalculator.calculate(tokens));
+                } else {
+                    writer.write(CommandLineCalculator.calculate(new String[] { line }));
+                }
+            } catch (IllegalArgumentException e) {
+                stats.errors++;
+                writer.write("Line " + lineNumber + ": " + e.getMessage());
+            }
+            writer.write('\n');
+        }
+        writer.flush();
+        stats.nanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    // whitespace separated words of line into tokens, returns how many there are (one more means "too many")
+    static int split(String line, String[] tokens) {
+        int count = 0;
+        final int length = line.length();
+        int i = 0;
+        while (i < length) {
+            while (i < length && Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            if (i == length) {
+                break;
+            }
+            int begin = i;
+            while (i < length && !Character.isWhitespace(line.charAt(i))) {
+                i++;
+            }
+            if (count == tokens.length) {
+                return count + 1;
+            }
+            tokens[count++] = line.substring(begin, i);
+        }
+        return count;
+    }
+
+    public static final class Stats {
+        long expressions;
+        long errors;
+        long nanos;
+
+        public long expressions() {
+            return expressions;
+        }
+
+        public long errors() {
+            return errors;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+            return String.format("%d expressions (%d errors) in %.3f s, %.0f expressions/s", expressions, errors,
+                    seconds, seconds > 0 ? expressions / seconds : 0.0);
+        }
+    }
+}
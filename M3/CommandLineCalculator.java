@@ -1,7 +1,9 @@
 package M3;
 
+import java.io.IOException;
 import java.math.BigDecimal;      // nhd5 / Nilkanth Dhariya / 10/12/25
 import java.text.DecimalFormat;   // nhd5 / Nilkanth Dhariya / 10/12/25
+import java.util.Arrays;
 
 /*
 Challenge 1: Command-Line Calculator
@@ -12,6 +14,9 @@ Challenge 1: Command-Line Calculator
 - Ensures correct decimal places in output based on input (e.g., 0.1 + 0.2 → 1 decimal place)
 - Display an error for invalid inputs or unsupported operators
 - Capture 5 variations of tests
+- Also takes a whole expression with + - * / %, parentheses and precedence (see CalculatorExpression)
+- Run with --stream [input|-] [output] to evaluate one expression per line (see CalculatorStream)
+- Run with --columns <csv> <leftColumn> <+|-> <rightColumn> for two columns of a CSV (see CalculatorColumns)
 */
 
 /*
@@ -26,117 +31,149 @@ Challenge 1: Command-Line Calculator
 public class CommandLineCalculator extends BaseClass {
     private static String ucid = "nhd5"; // my UCID (nhd5)
 
-    public static void main(String[] args) {
+    public static final String INVALID_OPERATOR = "Invalid operator. Use +, -, *, / or %.";
+    public static final String INVALID_INPUT = "Invalid input. Please ensure correct format and valid numbers.";
+
+    // DecimalFormat is slow to build and not thread safe: one per decimal count per thread
+    private static final ThreadLocal<DecimalFormat[]> FORMATS = ThreadLocal.withInitial(() -> new DecimalFormat[32]);
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--stream")) {
+            // many expressions, one per line: --stream [input|-] [output]
+            CalculatorStream.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--columns")) {
+            // every row of a CSV: --columns <csv|-> <leftColumn> <+|-> <rightColumn> [output|-]
+            CalculatorColumns.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         printHeader(ucid, 1, "Objective: Implement a calculator using command-line arguments.");
 
-        // I need exactly 3 things: number, operator, number
-        if (args.length != 3) {
+        // I need 3 things (number, operator, number) or one whole expression
+        if (args.length == 0) {
             System.out.println("Usage: java M3.CommandLineCalculator <num1> <operator> <num2>");
+            System.out.println("   or: java M3.CommandLineCalculator \"<expression>\", e.g. \"(1.5 + 2) * 3 % 4\"");
             printFooter(ucid, 1);
             return;
         }
 
+        System.out.println("Calculating result...");
         try {
-            System.out.println("Calculating result...");
-
-            // get the three parts from command line
-            String leftText = args[0];
-            String opText = args[1];
-            String rightText = args[2];
-
-            // only + or - are allowed
-            if (!opText.equals("+") && !opText.equals("-")) {
-                System.out.println("Invalid operator. Use + or - only.");
-                printFooter(ucid, 1);
-                return;
-            }
+            // match the screenshot style
+            System.out.println("The answer is " + calculate(args));
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+        }
 
-            // make numbers from the text (BigDecimal keeps decimals accurate)
-            BigDecimal left = new BigDecimal(leftText);
-            BigDecimal right = new BigDecimal(rightText);
+        printFooter(ucid, 1);
+    }
 
-            // figure out how many decimals each input has (beginner way — just count after '.')
-            int leftDecimals = 0;
-            int dotL = leftText.indexOf('.');
-            if (dotL != -1) {
-                int end = leftText.length();
-                int e1 = leftText.indexOf('e');
-                int e2 = leftText.indexOf('E');
-                int ePos = -1;
-                if (e1 != -1 && e2 != -1) {
-                    ePos = (e1 < e2) ? e1 : e2;
-                } else if (e1 != -1) {
-                    ePos = e1;
-                } else if (e2 != -1) {
-                    ePos = e2;
-                }
-                if (ePos != -1) {
-                    end = ePos;
-                }
-                leftDecimals = end - dotL - 1;
-                if (leftDecimals < 0) leftDecimals = 0;
+    /**
+     * Works out the command line: the original &lt;num1&gt; &lt;+ or -&gt;
+     * &lt;num2&gt; form, or any expression CalculatorExpression accepts (the
+     * arguments joined with spaces) that has no variables
+     *
+     * @param args command line arguments
+     * @return the formatted answer
+     * @throws IllegalArgumentException with the message to show
+     */
+    static String calculate(String[] args) {
+        if (args.length == 3 && isNumberText(args[0]) && isNumberText(args[2])) {
+            if (!isOperator(args[1])) {
+                throw new IllegalArgumentException(INVALID_OPERATOR); // "5 x 3" stays an operator mistake
             }
-
-            int rightDecimals = 0;
-            int dotR = rightText.indexOf('.');
-            if (dotR != -1) {
-                int end = rightText.length();
-                int e1 = rightText.indexOf('e');
-                int e2 = rightText.indexOf('E');
-                int ePos = -1;
-                if (e1 != -1 && e2 != -1) {
-                    ePos = (e1 < e2) ? e1 : e2;
-                } else if (e1 != -1) {
-                    ePos = e1;
-                } else if (e2 != -1) {
-                    ePos = e2;
-                }
-                if (ePos != -1) {
-                    end = ePos;
-                }
-                rightDecimals = end - dotR - 1;
-                if (rightDecimals < 0) rightDecimals = 0;
+            if (args[1].equals("+") || args[1].equals("-")) {
+                return calculate(args[0], args[1], args[2]);
             }
+        }
+        CalculatorExpression expression = CalculatorExpression.compile(String.join(" ", args));
+        if (expression.variableCount() > 0) {
+            throw new IllegalArgumentException("Invalid expression: unknown name '" + expression.variable(0) + "'");
+        }
+        return expression.evaluate();
+    }
 
-            int maxDecimals = leftDecimals;
-            if (rightDecimals > maxDecimals) {
-                maxDecimals = rightDecimals;
-            }
+    // no parentheses, so not part of a longer expression like "(1" "+" "2)"
+    private static boolean isNumberText(String text) {
+        return text.indexOf('(') == -1 && text.indexOf(')') == -1;
+    }
 
-            // do the math
-            BigDecimal answer;
-            if (opText.equals("+")) {
-                answer = left.add(right);
-            } else {
-                answer = left.subtract(right);
-            }
+    private static boolean isOperator(String text) {
+        return text.length() == 1 && "+-*/%".indexOf(text.charAt(0)) != -1;
+    }
 
-            // build a simple pattern like "0" or "0.0" or "0.00" (beginner loop, no fancy repeat)
-            String pattern;
-            if (maxDecimals == 0) {
-                pattern = "0";
-            } else {
-                String dots = "0.";
-                int i = 0;
-                while (i < maxDecimals) {
-                    dots = dots + "0";
-                    i = i + 1;
-                }
-                pattern = dots;
+    /**
+     * Adds or subtracts two decimal numbers, keeping as many decimals as the
+     * input with the most
+     *
+     * @param leftText  first number, anything BigDecimal accepts
+     * @param opText    "+" or "-"
+     * @param rightText second number
+     * @return the formatted answer, e.g. "0.3" for 0.1 + 0.2
+     * @throws IllegalArgumentException with {@link #INVALID_OPERATOR} or
+     *                                  {@link #INVALID_INPUT} as the message
+     */
+    public static String calculate(String leftText, String opText, String rightText) {
+        // only + or - are allowed
+        if (!opText.equals("+") && !opText.equals("-")) {
+            throw new IllegalArgumentException(INVALID_OPERATOR);
+        }
+        // most inputs fit in a long with a scale: no BigDecimal or DecimalFormat needed
+        ScaledDecimal fastLeft = ScaledDecimal.parse(leftText);
+        ScaledDecimal fastRight = fastLeft == null ? null : ScaledDecimal.parse(rightText);
+        if (fastRight != null && ScaledDecimal.canFormat()) {
+            ScaledDecimal answer = opText.equals("+") ? fastLeft.add(fastRight) : fastLeft.subtract(fastRight);
+            if (answer != null) {
+                return answer.format(Math.max(fastLeft.decimals(), fastRight.decimals()));
             }
+        }
+        try {
+            // make numbers from the text (BigDecimal keeps decimals accurate)
+            BigDecimal left = new BigDecimal(leftText);
+            BigDecimal right = new BigDecimal(rightText);
 
-            // format the answer with that many decimals
-            DecimalFormat df = new DecimalFormat(pattern);
-            String formatted = df.format(answer);
+            int maxDecimals = Math.max(decimals(leftText), decimals(rightText));
 
-            // match the screenshot style
-            System.out.println("The answer is " + formatted);
+            // do the math
+            BigDecimal answer = opText.equals("+") ? left.add(right) : left.subtract(right);
 
-        } catch (Exception e) {
+            // format the answer with that many decimals
+            return format(maxDecimals).format(answer);
+        } catch (RuntimeException e) {
             // any error: wrong numbers, wrong format, etc.
-            System.out.println("Invalid input. Please ensure correct format and valid numbers.");
+            throw new IllegalArgumentException(INVALID_INPUT, e);
         }
+    }
 
-        printFooter(ucid, 1);
+    // how many decimals the input has (just count after '.', stopping at an exponent)
+    static int decimals(String text) {
+        int dot = text.indexOf('.');
+        if (dot == -1) {
+            return 0;
+        }
+        int end = text.length();
+        for (int i = dot + 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == 'e' || c == 'E') {
+                end = i;
+                break;
+            }
+        }
+        return Math.max(0, end - dot - 1);
+    }
+
+    // a pattern like "0" or "0.0" or "0.00"
+    static DecimalFormat format(int decimals) {
+        DecimalFormat[] formats = FORMATS.get();
+        if (decimals >= formats.length) {
+            return new DecimalFormat(decimals == 0 ? "0" : "0." + "0".repeat(decimals));
+        }
+        DecimalFormat format = formats[decimals];
+        if (format == null) {
+            format = new DecimalFormat(decimals == 0 ? "0" : "0." + "0".repeat(decimals));
+            formats[decimals] = format;
+        }
+        return format;
     }
 }
@@ -0,0 +1,175 @@
+package M3;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Usage, error and latency counters for the slash commands
+ *
+ * <p>
+ * CommandRegistry records every dispatched line here: a call count, a usage
+ * error count and a {@link LatencyHistogram} per command, plus totals for
+ * unhandled commands and empty lines. All counters are LongAdders or atomic
+ * arrays, so any number of threads can record at once without locking.
+ * </p>
+ */
+public class CommandMetrics {
+    public static final String FILE_PROPERTY = "slash.statsFile";
+    public static final String PERIOD_PROPERTY = "slash.statsSeconds";
+
+    private final Map<String, Stats> commands = new ConcurrentSkipListMap<>();
+    private final LongAdder unhandled = new LongAdder();
+    private final LongAdder emptyLines = new LongAdder();
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * @param name lowercase command name
+     * @return the counters of that command, created on first use
+     */
+    public Stats forCommand(String name) {
+        return commands.computeIfAbsent(name, key -> new Stats());
+    }
+
+    void unhandled() {
+        unhandled.increment();
+    }
+
+    void emptyLine() {
+        emptyLines.increment();
+    }
+
+    /**
+     * Appends a summary line and one line per command that was called
+     *
+     * @param out receives the report, every line ends with '\n'
+     */
+    public void report(StringBuilder out) {
+        long unknown = unhandled.sum();
+        long empty = emptyLines.sum();
+        long total = unknown + empty;
+        long usageErrors = empty;
+        for (Stats stats : commands.values()) {
+            total += stats.calls.sum();
+            usageErrors += stats.usageErrors.sum();
+        }
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        out.append(String.format("%,d commands in %.1f s (%,.1f/s), unhandled %,d (%.2f%%), usage errors %,d (%.2f%%)\n",
+                total, seconds, total / seconds, unknown, percent(unknown, total), usageErrors,
+                percent(usageErrors, total)));
+        for (Map.Entry<String, Stats> entry : commands.entrySet()) {
+            Stats stats = entry.getValue();
+            long calls = stats.calls.sum();
+            if (calls == 0) {
+                continue;
+            }
+            LatencyHistogram latency = stats.latency;
+            out.append(String.format("%-8s calls %,d, usage errors %,d, p50 %.1f us, p99 %.1f us, max %.1f us\n",
+                    entry.getKey(), calls, stats.usageErrors.sum(), latency.percentile(0.50) / 1e3,
+                    latency.percentile(0.99) / 1e3, latency.max() / 1e3));
+        }
+    }
+
+    /**
+     * Replaces file with the current report, writing a temporary file next to
+     * it first so readers never see half a report
+     *
+     * @param file where to write
+     * @throws IOException when writing fails
+     */
+    public void writeTo(Path file) throws IOException {
+        StringBuilder out = new StringBuilder(512);
+        report(out);
+        Path absolute = file.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        Files.write(temp, out.toString().getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the report to file every period on a daemon thread until the
+     * returned executor is shut down
+     *
+     * @param file    where to write
+     * @param seconds seconds between writes
+     * @return the executor running the dumps
+     */
+    public ScheduledExecutorService dumpEvery(Path file, long seconds) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "command-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> {
+            try {
+                writeTo(file);
+            } catch (IOException e) {
+                System.err.println("Could not write command stats to " + file + ": " + e.getMessage());
+            }
+        }, seconds, seconds, TimeUnit.SECONDS);
+        return executor;
+    }
+
+    /**
+     * Starts {@link #dumpEvery(Path, long)} when the system property
+     * {@value #FILE_PROPERTY} names a file; {@value #PERIOD_PROPERTY} sets the
+     * seconds between writes (default 10)
+     *
+     * @return the executor running the dumps, or null when not configured
+     */
+    public ScheduledExecutorService dumpIfConfigured() {
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file == null || file.isEmpty()) {
+            return null;
+        }
+        return dumpEvery(Paths.get(file), Long.getLong(PERIOD_PROPERTY, 10));
+    }
+
+    /**
+     * Stops a dump started by {@link #dumpIfConfigured()} and writes the final
+     * report
+     *
+     * @param executor the executor returned by dumpIfConfigured, may be null
+     */
+    public void finishDump(ScheduledExecutorService executor) {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        try {
+            writeTo(Paths.get(System.getProperty(FILE_PROPERTY)));
+        } catch (IOException e) {
+            System.err.println("Could not write command stats: " + e.getMessage());
+        }
+    }
+
+    private static double percent(long part, long total) {
+        return total == 0 ? 0 : 100.0 * part / total;
+    }
+
+    /**
+     * Counters of one command
+     */
+    public static class Stats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder usageErrors = new LongAdder();
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        void record(SlashCommand.Result result, long nanos) {
+            calls.increment();
+            if (result == SlashCommand.Result.USAGE_ERROR) {
+                usageErrors.increment();
+            }
+            latency.record(nanos);
+        }
+    }
+}
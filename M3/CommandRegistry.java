@@ -0,0 +1,205 @@
+package M3;
+
+import java.util.Locale;
+
+/**
+ * Name to SlashCommand table with case-insensitive lookup
+ *
+ * <p>
+ * Names live in an open addressing hash table sized once at construction.
+ * Lookups hash and compare the command straight out of the input line with
+ * case folding, so no lowered copy or split array is allocated per line, and
+ * dispatch costs the same however many commands are registered.
+ * </p>
+ */
+public class CommandRegistry {
+    public static final String EMPTY_COMMAND = "Error: empty command. Try /greet, /roll, /echo, or /quit.";
+    public static final String UNHANDLED = "Unhandled command";
+
+    private final String[] names;
+    private final SlashCommand[] commands;
+    private final CommandMetrics.Stats[] stats; // per slot, only when metrics is set
+    private final int mask;
+    private int size;
+    private CommandMetrics metrics;
+
+    public CommandRegistry() {
+        this(16);
+    }
+
+    /**
+     * @param expectedCommands how many commands will be registered, the table
+     *                         is sized to stay at most half full
+     */
+    public CommandRegistry(int expectedCommands) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedCommands * 2 - 1)) << 1;
+        names = new String[capacity];
+        commands = new SlashCommand[capacity];
+        stats = new CommandMetrics.Stats[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds or replaces a command
+     *
+     * @param name    command name including the slash, e.g. "/greet"
+     * @param command handler
+     * @return this registry
+     */
+    public CommandRegistry register(String name, SlashCommand command) {
+        String key = name.toLowerCase(Locale.ROOT);
+        int slot = find(key, 0, key.length());
+        if (names[slot] == null) {
+            if ((size + 1) * 2 > names.length) {
+                throw new IllegalStateException("Registry is full, create it with a larger expectedCommands");
+            }
+            size++;
+        }
+        names[slot] = key;
+        commands[slot] = command;
+        stats[slot] = metrics == null ? null : metrics.forCommand(key);
+        return this;
+    }
+
+    /**
+     * Records every dispatched line into metrics from now on
+     *
+     * @param metrics counters to record into
+     * @return this registry
+     */
+    public CommandRegistry withMetrics(CommandMetrics metrics) {
+        this.metrics = metrics;
+        for (int slot = 0; slot < names.length; slot++) {
+            if (names[slot] != null) {
+                stats[slot] = metrics.forCommand(names[slot]);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return the metrics set with {@link #withMetrics(CommandMetrics)}, or null
+     */
+    public CommandMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * @return the command registered under line[start, end) ignoring case, or
+     *         null
+     */
+    public SlashCommand lookup(CharSequence line, int start, int end) {
+        int slot = find(line, start, end);
+        return names[slot] == null ? null : commands[slot];
+    }
+
+    /**
+     * Index of the registered name equal to line[start, end) (ignoring case),
+     * or of the empty slot where it would go
+     *
+     * @return table slot
+     */
+    private int find(CharSequence line, int start, int end) {
+        int slot = hash(line, start, end) & mask;
+        while (true) {
+            String name = names[slot];
+            if (name == null || matches(name, line, start, end)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Runs one input line
+     *
+     * <p>
+     * The line is trimmed, the command name ends at the first whitespace and
+     * the rest (trimmed) is the argument text, same as the original
+     * {@code trim()} + {@code split("\\s+", 2)}.
+     * </p>
+     *
+     * @param line raw input line
+     * @param out  receives the response
+     * @return result of the command, UNHANDLED for unknown names and
+     *         USAGE_ERROR for an empty line
+     */
+    public SlashCommand.Result dispatch(String line, StringBuilder out) {
+        int start = 0;
+        int end = line.length();
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            if (metrics != null) {
+                metrics.emptyLine();
+            }
+            out.append(EMPTY_COMMAND).append('\n');
+            return SlashCommand.Result.USAGE_ERROR;
+        }
+        int nameEnd = start;
+        while (nameEnd < end && !isRegexSpace(line.charAt(nameEnd))) {
+            nameEnd++;
+        }
+        int slot = find(line, start, nameEnd);
+        if (names[slot] == null) {
+            if (metrics != null) {
+                metrics.unhandled();
+            }
+            out.append(UNHANDLED).append('\n');
+            return SlashCommand.Result.UNHANDLED;
+        }
+        int argsStart = nameEnd;
+        while (argsStart < end && line.charAt(argsStart) <= ' ') {
+            argsStart++;
+        }
+        String args = line.substring(argsStart, end);
+        CommandMetrics.Stats commandStats = stats[slot];
+        if (commandStats == null) {
+            return commands[slot].execute(args, out);
+        }
+        long started = System.nanoTime();
+        SlashCommand.Result result = commands[slot].execute(args, out);
+        commandStats.record(result, System.nanoTime() - started);
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // the \s class of java.util.regex: [ \t\n\x0B\f\r]
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + fold(text.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean matches(String name, CharSequence text, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != fold(text.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char fold(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        return c < 0x80 ? c : Character.toLowerCase(c);
+    }
+}
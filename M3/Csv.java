@@ -0,0 +1,93 @@
+package M3;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The CSV rules shared by MadLibsBatchRenderer and CalculatorColumns
+ *
+ * <p>
+ * Fields are separated by ',', and a field in double quotes may contain commas
+ * and "" for a quote (RFC 4180), except that a record is always one line.
+ * </p>
+ */
+final class Csv {
+    private Csv() {
+    }
+
+    /**
+     * Splits one record; a quoted field can't hold a line break
+     *
+     * @return the fields, at least one
+     */
+    static List<String> parse(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        final int length = line.length();
+        while (true) {
+            field.setLength(0);
+            if (i < length && line.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        throw new IllegalArgumentException("Unterminated quoted field (a record must fit on one line)");
+                    }
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < length && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                }
+                if (i < length && line.charAt(i) != ',') {
+                    throw new IllegalArgumentException("Unexpected text after quoted field at column " + (i + 1));
+                }
+            } else {
+                int comma = line.indexOf(',', i);
+                int end = comma == -1 ? length : comma;
+                field.append(line, i, end);
+                i = end;
+            }
+            fields.add(field.toString());
+            if (i >= length) {
+                return fields;
+            }
+            i++; // the comma
+        }
+    }
+
+    /**
+     * Cuts one field out of a line without quotes, without splitting the rest
+     *
+     * @return field index of the line, trimmed, or null when the line is
+     *         shorter
+     */
+    static String field(String line, int index) {
+        int start = 0;
+        for (int i = 0; i < index; i++) {
+            int comma = line.indexOf(',', start);
+            if (comma == -1) {
+                return null;
+            }
+            start = comma + 1;
+        }
+        int end = line.indexOf(',', start);
+        return line.substring(start, end == -1 ? line.length() : end).trim();
+    }
+
+    /**
+     * @return text as one CSV field, quoted when it holds a comma or a quote
+     */
+    static String quote(String text) {
+        if (text.indexOf(',') == -1 && text.indexOf('"') == -1) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
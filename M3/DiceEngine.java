@@ -0,0 +1,123 @@
+package M3;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Sums of NdS dice rolls for /roll
+ *
+ * <p>
+ * Up to {@link #EXACT_LIMIT} dice are rolled one by one with the calling
+ * thread's ThreadLocalRandom, so nothing is shared between threads. Above that
+ * {@link #roll(int, int)} samples the total directly from the normal
+ * approximation of the sum (mean N(S+1)/2, variance N(S^2-1)/12), which takes
+ * the same time for any N. {@link #rollExact(int, int)} always rolls every die,
+ * splitting large counts into chunks that run on the common fork-join pool,
+ * each with its own split SplittableRandom.
+ * </p>
+ * <p>
+ * Note: Totals are longs; N * S is at most (2^31 - 1)^2, which always fits.
+ * </p>
+ */
+public final class DiceEngine {
+    public static final int EXACT_LIMIT = 1 << 20;
+    static final int PARALLEL_CHUNK = 1 << 20;
+
+    private DiceEngine() {
+    }
+
+    /**
+     * @param num   number of dice, at least 1
+     * @param sides sides per die, at least 1
+     * @return the sum, exact for num up to {@link #EXACT_LIMIT} and sampled
+     *         from the normal approximation above that
+     */
+    public static long roll(int num, int sides) {
+        check(num, sides);
+        if (num <= EXACT_LIMIT) {
+            return sequential(ThreadLocalRandom.current(), num, sides);
+        }
+        return approximate(num, sides, ThreadLocalRandom.current().nextGaussian());
+    }
+
+    /**
+     * Rolls every die, in parallel chunks when num is large
+     *
+     * @param num   number of dice, at least 1
+     * @param sides sides per die, at least 1
+     * @return the sum
+     */
+    public static long rollExact(int num, int sides) {
+        check(num, sides);
+        if (num <= PARALLEL_CHUNK) {
+            return sequential(ThreadLocalRandom.current(), num, sides);
+        }
+        return parallel(new SplittableRandom(ThreadLocalRandom.current().nextLong()), num, sides);
+    }
+
+    /**
+     * Rolls num dice in chunks of {@link #PARALLEL_CHUNK} on the common
+     * fork-join pool, each chunk with its own split of random
+     */
+    static long parallel(SplittableRandom random, int num, int sides) {
+        return ForkJoinPool.commonPool().invoke(new RollTask(random, num, sides));
+    }
+
+    static long sequential(RandomGenerator random, int num, int sides) {
+        if (sides == 1) {
+            return num;
+        }
+        long total = num; // each die adds 1 + nextInt(sides)
+        for (int i = 0; i < num; i++) {
+            total += random.nextInt(sides);
+        }
+        return total;
+    }
+
+    /**
+     * Normal approximation of the sum, rounded and clamped to [num, num * sides]
+     *
+     * @param gaussian a standard normal sample
+     */
+    static long approximate(int num, int sides, double gaussian) {
+        double mean = num * ((sides + 1.0) / 2.0);
+        double deviation = Math.sqrt(num * ((double) sides * sides - 1.0) / 12.0);
+        long total = Math.round(mean + deviation * gaussian);
+        long max = (long) num * sides;
+        return total < num ? num : total > max ? max : total;
+    }
+
+    private static void check(int num, int sides) {
+        if (num < 1 || sides < 1) {
+            throw new IllegalArgumentException("num and sides must be positive");
+        }
+    }
+
+    private static final class RollTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+        private final SplittableRandom random;
+        private final int num;
+        private final int sides;
+
+        RollTask(SplittableRandom random, int num, int sides) {
+            this.random = random;
+            this.num = num;
+            this.sides = sides;
+        }
+
+        @Override
+        protected Long compute() {
+            if (num <= PARALLEL_CHUNK) {
+                return sequential(random, num, sides);
+            }
+            int half = num >>> 1;
+            RollTask left = new RollTask(random.split(), half, sides);
+            left.fork();
+            long right = new RollTask(random, num - half, sides).compute();
+            return left.join() + right;
+        }
+    }
+}
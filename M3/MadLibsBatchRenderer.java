@@ -0,0 +1,457 @@
+package M3;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Renders Mad Libs stories in bulk from a file of answer records
+ *
+ * <p>
+ * Every record names a story (its file name in the stories folder or
+ * archive) and gives one word per placeholder, in prompt order. Records are
+ * one per line, either CSV ({@code story1.txt,tall,giraffe,...}, an optional
+ * header line starting with "story") or JSON lines
+ * ({@code {"story": "story1.txt", "words": ["tall", "giraffe"]}}), chosen by
+ * the .json/.jsonl/.ndjson extension. Each completed story is written followed
+ * by an empty line, the same as the console prints it, in input order.
+ * </p>
+ * <p>
+ * Lines are grouped into fixed-size batches that a worker pool parses and
+ * renders (see OrderedBatches), and at most two batches per worker are in
+ * flight, so memory stays bounded however many records there are. Compiled
+ * stories are shared by all workers in a least recently used cache of
+ * {@code cacheSize} entries, so an archive with a million stories doesn't end
+ * up in memory either. A bad record (unknown story, wrong number of words,
+ * malformed line) is reported on System.err and skipped.
+ * </p>
+ * <p>
+ * Note: CSV quoting follows RFC 4180 (a quoted field may hold commas, and ""
+ * stands for a quote) except that a record is always one line: a quoted field
+ * can't contain a line break, and an unterminated quote is reported as a bad
+ * record. Words with line breaks need the JSON lines form ({@code "\n"}).
+ * </p>
+ * <p>
+ * Usage: java M3.MadLibsBatchRenderer &lt;answers&gt; &lt;output&gt; [stories] [workers] [batchSize] [cacheSize]
+ * (stories is a folder or a StoryArchive file, default M3/stories)
+ * </p>
+ */
+public class MadLibsBatchRenderer implements Closeable {
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+    private static final int IO_BUFFER = 1 << 16;
+
+    private final Path stories;
+    private final StoryArchive archive;
+    private final Map<String, Integer> archiveNames;
+    // guarded by itself; access order makes it a least recently used cache
+    private final LinkedHashMap<String, MadLibsTemplate> templates;
+    private final int workers;
+    private final int batchSize;
+
+    /**
+     * @param stories   stories folder or StoryArchive file
+     * @param workers   worker threads
+     * @param batchSize records per batch
+     * @throws IOException when the archive can't be opened
+     */
+    public MadLibsBatchRenderer(Path stories, int workers, int batchSize) throws IOException {
+        this(stories, workers, batchSize, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param stories   stories folder or StoryArchive file
+     * @param workers   worker threads
+     * @param batchSize records per batch
+     * @param cacheSize compiled stories kept in memory
+     * @throws IOException when the archive can't be opened
+     */
+    public MadLibsBatchRenderer(Path stories, int workers, int batchSize, int cacheSize) throws IOException {
+        if (workers < 1 || batchSize < 1 || cacheSize < 1) {
+            throw new IllegalArgumentException("workers, batchSize and cacheSize must be positive");
+        }
+        this.templates = new LinkedHashMap<String, MadLibsTemplate>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MadLibsTemplate> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        this.stories = stories.toAbsolutePath().normalize();
+        this.workers = workers;
+        this.batchSize = batchSize;
+        if (Files.isRegularFile(stories)) {
+            archive = StoryArchive.open(stories);
+            archiveNames = new HashMap<>(archive.size() * 2);
+            for (int i = 0; i < archive.size(); i++) {
+                archiveNames.put(archive.name(i), i);
+            }
+        } else {
+            archive = null;
+            archiveNames = null;
+        }
+    }
+
+    /**
+     * Renders every record of answers into output
+     *
+     * @param answers CSV or JSON lines answer file
+     * @param output  file to create or replace
+     * @return record counts of the run
+     * @throws IOException when reading or writing fails
+     */
+    public Stats run(Path answers, Path output) throws IOException {
+        final boolean json = isJson(answers);
+        final Totals totals = new Totals();
+        try (BufferedReader reader = new BufferedReader(Files.newBufferedReader(answers, StandardCharsets.UTF_8),
+                IO_BUFFER);
+                Writer writer = new BufferedWriter(
+                        new OutputStreamWriter(Files.newOutputStream(output), StandardCharsets.UTF_8), IO_BUFFER);
+                OrderedBatches<Batch> batches = new OrderedBatches<>("madlibs-batch-worker", workers,
+                        batch -> batch.writeTo(writer, totals))) {
+            List<String> batch = new ArrayList<>(batchSize);
+            long firstLine = 1;
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && !json && isHeader(line)) {
+                    firstLine = 2;
+                    continue;
+                }
+                batch.add(line);
+                if (batch.size() == batchSize) {
+                    batches.submit(renderer(batch, firstLine, json));
+                    batch = new ArrayList<>(batchSize);
+                    firstLine = lineNumber + 1;
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.submit(renderer(batch, firstLine, json));
+            }
+            batches.finish();
+            return new Stats(totals.stories, totals.errors, batches.elapsedNanos());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (archive != null) {
+            archive.close();
+        }
+    }
+
+    private Callable<Batch> renderer(List<String> lines, long firstLine, boolean json) {
+        return () -> {
+            Batch batch = new Batch();
+            StringBuilder out = new StringBuilder(lines.size() * 256);
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    List<String> record = json ? parseJson(line) : Csv.parse(line);
+                    MadLibsTemplate template = template(record.get(0));
+                    String[] words = record.subList(1, record.size()).toArray(new String[0]);
+                    out.append(template.render(words)).append('\n');
+                    batch.stories++;
+                } catch (IllegalArgumentException | IOException e) {
+                    batch.errors.add("Line " + (firstLine + i) + ": " + e.getMessage());
+                }
+            }
+            batch.text = out.toString();
+            return batch;
+        };
+    }
+
+    private MadLibsTemplate template(String name) throws IOException {
+        MadLibsTemplate template;
+        synchronized (templates) {
+            template = templates.get(name);
+        }
+        if (template != null) {
+            return template;
+        }
+        // compiled outside the lock; two workers missing the same story at once both compile it
+        if (archive != null) {
+            Integer index = archiveNames.get(name);
+            if (index == null) {
+                throw new IllegalArgumentException("No story named " + name);
+            }
+            template = archive.load(index);
+        } else {
+            Path file = stories.resolve(name).normalize();
+            if (!stories.equals(file.getParent()) || !Files.isRegularFile(file)) {
+                throw new IllegalArgumentException("No story named " + name);
+            }
+            template = MadLibsTemplate.compile(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+        }
+        synchronized (templates) {
+            MadLibsTemplate existing = templates.putIfAbsent(name, template);
+            return existing != null ? existing : template;
+        }
+    }
+
+    private static boolean isJson(Path answers) {
+        String name = answers.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".json") || name.endsWith(".jsonl") || name.endsWith(".ndjson");
+    }
+
+    private static boolean isHeader(String line) {
+        List<String> fields = Csv.parse(line);
+        return fields.get(0).trim().equalsIgnoreCase("story");
+    }
+
+    /**
+     * Reads a {@code {"story": "...", "words": ["...", ...]}} object; other
+     * keys are ignored
+     *
+     * @return the story name followed by the words
+     */
+    static List<String> parseJson(String line) {
+        JsonCursor json = new JsonCursor(line);
+        String story = null;
+        List<String> words = null;
+        json.expect('{');
+        if (!json.consume('}')) {
+            do {
+                String key = json.string();
+                json.expect(':');
+                if (key.equals("story")) {
+                    story = json.string();
+                } else if (key.equals("words")) {
+                    words = new ArrayList<>();
+                    json.expect('[');
+                    if (!json.consume(']')) {
+                        do {
+                            words.add(json.string());
+                        } while (json.consume(','));
+                        json.expect(']');
+                    }
+                } else {
+                    json.skipValue();
+                }
+            } while (json.consume(','));
+            json.expect('}');
+        }
+        json.end();
+        if (story == null || words == null) {
+            throw new IllegalArgumentException("Record needs \"story\" and \"words\"");
+        }
+        List<String> record = new ArrayList<>(words.size() + 1);
+        record.add(story);
+        record.addAll(words);
+        return record;
+    }
+
+    private static final class JsonCursor {
+        private final String text;
+        private int at;
+
+        JsonCursor(String text) {
+            this.text = text;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw error("'" + c + "'");
+            }
+        }
+
+        boolean consume(char c) {
+            skipSpaces();
+            if (at < text.length() && text.charAt(at) == c) {
+                at++;
+                return true;
+            }
+            return false;
+        }
+
+        void end() {
+            skipSpaces();
+            if (at != text.length()) {
+                throw error("end of line");
+            }
+        }
+
+        String string() {
+            skipSpaces();
+            if (at >= text.length() || text.charAt(at) != '"') {
+                throw error("a string");
+            }
+            at++;
+            StringBuilder out = null;
+            int from = at;
+            while (at < text.length()) {
+                char c = text.charAt(at);
+                if (c == '"') {
+                    String value = out == null ? text.substring(from, at) : out.append(text, from, at).toString();
+                    at++;
+                    return value;
+                }
+                if (c != '\\') {
+                    at++;
+                    continue;
+                }
+                if (out == null) {
+                    out = new StringBuilder();
+                }
+                out.append(text, from, at);
+                if (at + 1 >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(at + 1);
+                at += 2;
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        out.append(escaped);
+                        break;
+                    case 'b':
+                        out.append('\b');
+                        break;
+                    case 'f':
+                        out.append('\f');
+                        break;
+                    case 'n':
+                        out.append('\n');
+                        break;
+                    case 'r':
+                        out.append('\r');
+                        break;
+                    case 't':
+                        out.append('\t');
+                        break;
+                    case 'u':
+                        if (at + 4 > text.length()) {
+                            throw error("4 hex digits");
+                        }
+                        try {
+                            out.append((char) Integer.parseInt(text.substring(at, at + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("4 hex digits");
+                        }
+                        at += 4;
+                        break;
+                    default:
+                        throw error("an escape");
+                }
+                from = at;
+            }
+            throw error("closing '\"'");
+        }
+
+        // numbers, true, false, null, strings, arrays and objects
+        void skipValue() {
+            skipSpaces();
+            if (at >= text.length()) {
+                throw error("a value");
+            }
+            char c = text.charAt(at);
+            if (c == '"') {
+                string();
+            } else if (c == '[' || c == '{') {
+                char close = c == '[' ? ']' : '}';
+                at++;
+                if (!consume(close)) {
+                    do {
+                        if (close == '}') {
+                            string();
+                            expect(':');
+                        }
+                        skipValue();
+                    } while (consume(','));
+                    expect(close);
+                }
+            } else {
+                int from = at;
+                while (at < text.length() && ",}] \t".indexOf(text.charAt(at)) == -1) {
+                    at++;
+                }
+                if (from == at) {
+                    throw error("a value");
+                }
+            }
+        }
+
+        private void skipSpaces() {
+            while (at < text.length() && text.charAt(at) <= ' ') {
+                at++;
+            }
+        }
+
+        private IllegalArgumentException error(String expected) {
+            return new IllegalArgumentException("Expected " + expected + " at column " + (at + 1));
+        }
+    }
+
+    private static final class Batch {
+        String text;
+        long stories;
+        final List<String> errors = new ArrayList<>();
+
+        void writeTo(Writer writer, Totals totals) throws IOException {
+            writer.write(text);
+            totals.stories += stories;
+            totals.errors += errors.size();
+            for (String error : errors) {
+                System.err.println(error);
+            }
+        }
+    }
+
+    private static final class Totals {
+        long stories;
+        long errors;
+    }
+
+    /**
+     * Totals of one run
+     */
+    public static class Stats extends OrderedBatches.Stats {
+        public final long stories;
+        public final long errors;
+
+        Stats(long stories, long errors, long nanos) {
+            super(nanos);
+            this.stories = stories;
+            this.errors = errors;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d stories, %,d bad records in %.3f s (%,.0f stories/s)", stories, errors,
+                    seconds(), perSecond(stories));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println(
+                    "Usage: java M3.MadLibsBatchRenderer <answers> <output> [stories] [workers] [batchSize] [cacheSize]");
+            return;
+        }
+        Path stories = Paths.get(args.length > 2 ? args[2] : "M3/stories");
+        int workers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int batchSize = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_BATCH_SIZE;
+        int cacheSize = args.length > 5 ? Integer.parseInt(args[5]) : DEFAULT_CACHE_SIZE;
+        try (MadLibsBatchRenderer renderer = new MadLibsBatchRenderer(stories, workers, batchSize, cacheSize)) {
+            System.out.println(renderer.run(Paths.get(args[0]), Paths.get(args[1])));
+        }
+    }
+}
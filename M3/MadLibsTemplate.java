@@ -0,0 +1,213 @@
+package M3;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A Mad Libs story parsed once into literal text and placeholder slots
+ *
+ * <p>
+ * Placeholders are found the same way MadLibsGenerator always did: on each
+ * line, a '&lt;' followed later on the same line by a '&gt;' is a placeholder
+ * and the text between them is its name; a '&lt;' with no '&gt;' after it is
+ * left as is. Each line is scanned once and the prompt labels ('_' shown as
+ * a space) are computed up front. {@link #render(String[])} then writes the
+ * whole story in one pass into a StringBuilder sized to fit, so the cost is
+ * linear in the story length however many placeholders it has.
+ * </p>
+ * <p>
+ * Note: Words are inserted as plain text. The old loop rescanned each line
+ * after every replacement, so a word that itself contained "&lt;...&gt;"
+ * turned into another prompt; that no longer happens.
+ * </p>
+ */
+public final class MadLibsTemplate {
+    // literals[i] comes before placeholder i, the last one after the last placeholder
+    private final String[] literals;
+    private final String[] names;
+    private final String[] labels;
+    private final int literalLength;
+
+    private MadLibsTemplate(String[] literals, String[] names, String[] labels) {
+        this.literals = literals;
+        this.names = names;
+        this.labels = labels;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * @param lines story lines, without line terminators
+     * @return the compiled story, rendered with a '\n' after every line
+     */
+    public static MadLibsTemplate compile(List<String> lines) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        for (String line : lines) {
+            int from = 0;
+            while (true) {
+                int start = line.indexOf('<', from);
+                if (start == -1) {
+                    break;
+                }
+                int end = line.indexOf('>', start + 1);
+                if (end == -1) {
+                    break;
+                }
+                literal.append(line, from, start);
+                literals.add(literal.toString());
+                literal.setLength(0);
+                names.add(line.substring(start + 1, end));
+                from = end + 1;
+            }
+            literal.append(line, from, line.length()).append('\n');
+        }
+        literals.add(literal.toString());
+        String[] nameArray = names.toArray(new String[0]);
+        String[] labelArray = new String[nameArray.length];
+        for (int i = 0; i < nameArray.length; i++) {
+            labelArray[i] = nameArray[i].replace('_', ' ');
+        }
+        return new MadLibsTemplate(literals.toArray(new String[0]), nameArray, labelArray);
+    }
+
+    /**
+     * Compiles a whole story file's text, split into lines the way
+     * Scanner.nextLine() splits them
+     *
+     * @param text decoded story file
+     * @return the compiled story, same as compiling its lines
+     */
+    public static MadLibsTemplate compile(String text) {
+        return fromSpans(text, placeholderSpans(text));
+    }
+
+    /**
+     * Finds the placeholders of a story file's text
+     *
+     * @param text decoded story file
+     * @return start and end offsets of every placeholder, the index of its '&lt;'
+     *         followed by the index just after its '&gt;'
+     */
+    public static int[] placeholderSpans(String text) {
+        int[] spans = new int[16];
+        int count = 0;
+        final int length = text.length();
+        int open = -1; // '<' waiting for its '>' on this line
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '<' && open == -1) {
+                open = i;
+            } else if (c == '>' && open != -1) {
+                if (count + 2 > spans.length) {
+                    spans = Arrays.copyOf(spans, spans.length * 2);
+                }
+                spans[count++] = open;
+                spans[count++] = i + 1;
+                open = -1;
+            } else if (isLineSeparator(c)) {
+                open = -1; // placeholders never span lines
+            }
+        }
+        return Arrays.copyOf(spans, count);
+    }
+
+    /**
+     * Builds the template of a story file's text from placeholder spans found
+     * earlier (e.g. stored in a StoryIndex), without scanning the text again
+     *
+     * @param text  decoded story file
+     * @param spans output of {@link #placeholderSpans(String)} for this text
+     * @return the compiled story
+     */
+    public static MadLibsTemplate fromSpans(String text, int[] spans) {
+        final int count = spans.length / 2;
+        String[] literals = new String[count + 1];
+        String[] names = new String[count];
+        String[] labels = new String[count];
+        int from = 0;
+        for (int i = 0; i < count; i++) {
+            int start = spans[2 * i];
+            int end = spans[2 * i + 1];
+            literals[i] = lines(text, from, start);
+            names[i] = text.substring(start + 1, end - 1);
+            labels[i] = names[i].replace('_', ' ');
+            from = end;
+        }
+        String last = lines(text, from, text.length());
+        if (text.length() > 0 && !isLineSeparator(text.charAt(text.length() - 1))) {
+            last += "\n"; // Scanner returns an unterminated last line too
+        }
+        literals[count] = last;
+        return new MadLibsTemplate(literals, names, labels);
+    }
+
+    // text[from, to) with every line separator turned into '\n'
+    private static String lines(String text, int from, int to) {
+        int i = from;
+        while (i < to && (text.charAt(i) == '\n' || !isLineSeparator(text.charAt(i)))) {
+            i++;
+        }
+        if (i == to) {
+            return text.substring(from, to);
+        }
+        StringBuilder out = new StringBuilder(to - from);
+        out.append(text, from, i);
+        for (; i < to; i++) {
+            char c = text.charAt(i);
+            if (c == '\r' && i + 1 < to && text.charAt(i + 1) == '\n') {
+                continue; // "\r\n" becomes the '\n' that follows
+            }
+            out.append(isLineSeparator(c) ? '\n' : c);
+        }
+        return out.toString();
+    }
+
+    // the separators of Scanner.nextLine(): \r\n, \n, \r, \u2028, \u2029, \u0085
+    private static boolean isLineSeparator(char c) {
+        return c == '\n' || c == '\r' || c == '\u2028' || c == '\u2029' || c == '\u0085';
+    }
+
+    public int placeholderCount() {
+        return names.length;
+    }
+
+    /**
+     * @return the placeholder name as written, e.g. "verb_ending_in_ing"
+     */
+    public String name(int index) {
+        return names[index];
+    }
+
+    /**
+     * @return the name to prompt with, e.g. "verb ending in ing"
+     */
+    public String label(int index) {
+        return labels[index];
+    }
+
+    /**
+     * @param words one word per placeholder, in story order
+     * @return the completed story, every line ending in '\n'
+     */
+    public String render(String[] words) {
+        if (words.length != names.length) {
+            throw new IllegalArgumentException(
+                    "Expected " + names.length + " words but got " + words.length);
+        }
+        int length = literalLength;
+        for (String word : words) {
+            length += word.length();
+        }
+        StringBuilder out = new StringBuilder(length);
+        for (int i = 0; i < words.length; i++) {
+            out.append(literals[i]).append(words[i]);
+        }
+        return out.append(literals[words.length]).toString();
+    }
+}
@@ -0,0 +1,135 @@
+package M3;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs batches on a worker pool and hands their results back in submission order
+ *
+ * <p>
+ * This is the ordered part of MadLibsBatchRenderer (M2's TextBatchPipeline has
+ * its own copy, the two modules don't depend on each other): the caller reads
+ * its input, cuts it into batches and submits one task per batch; every result
+ * goes to the sink in the order the tasks were submitted. At most
+ * two batches per worker are in flight, and {@link #submit} writes the oldest
+ * result before returning when that limit is reached, so memory stays bounded
+ * however large the input is.
+ * </p>
+ * <p>
+ * Note: Not thread safe, a single reader thread submits and receives every
+ * batch. Worker threads are daemons and are stopped by {@link #close()}.
+ * </p>
+ *
+ * @param <R> result of one batch
+ */
+public class OrderedBatches<R> implements Closeable {
+
+    /**
+     * Receives batch results on the submitting thread, in input order
+     */
+    public interface Sink<R> {
+        void accept(R result) throws IOException;
+    }
+
+    private final ExecutorService pool;
+    private final ArrayDeque<Future<R>> inFlight = new ArrayDeque<>();
+    private final int maxInFlight;
+    private final Sink<R> sink;
+    private final long start = System.nanoTime();
+
+    /**
+     * @param threadName name of the worker threads
+     * @param workers    worker threads
+     * @param sink       receives every result in submission order
+     */
+    public OrderedBatches(String threadName, int workers, Sink<R> sink) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be positive");
+        }
+        this.pool = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maxInFlight = workers * 2;
+        this.sink = sink;
+    }
+
+    /**
+     * Queues one batch, first passing the oldest result to the sink when too
+     * many batches are in flight
+     *
+     * @throws IOException when a batch failed or the sink did
+     */
+    public void submit(Callable<R> batch) throws IOException {
+        inFlight.add(pool.submit(batch));
+        if (inFlight.size() >= maxInFlight) {
+            sink.accept(await(inFlight.poll()));
+        }
+    }
+
+    /**
+     * Waits for every submitted batch and passes the results to the sink
+     *
+     * @throws IOException when a batch failed or the sink did
+     */
+    public void finish() throws IOException {
+        while (!inFlight.isEmpty()) {
+            sink.accept(await(inFlight.poll()));
+        }
+    }
+
+    /**
+     * @return nanoseconds since this runner was created
+     */
+    public long elapsedNanos() {
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Stops the workers; batches still in flight are abandoned
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    private static <R> R await(Future<R> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a batch", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch failed", e.getCause());
+        }
+    }
+
+    /**
+     * Wall time of one run, the base of each pipeline's totals
+     */
+    public abstract static class Stats {
+        public final long nanos;
+
+        protected Stats(long nanos) {
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return count per second of wall time
+         */
+        protected double perSecond(double count) {
+            return count / seconds();
+        }
+
+        protected double seconds() {
+            return nanos / 1e9;
+        }
+    }
+}
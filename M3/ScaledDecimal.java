@@ -0,0 +1,324 @@
+package M3;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+
+/**
+ * A decimal number held as an unscaled long and a scale, the value being
+ * unscaled * 10^-scale, like a BigDecimal that fits in 18 digits
+ *
+ * <p>
+ * {@link #parse(String)} reads BigDecimal's number syntax in one pass and
+ * also counts the digits written after the decimal point, the calculator's
+ * decimal rule. {@link #add} and {@link #subtract} are exact and
+ * {@link #format(int, StringBuilder)} writes the digits itself, giving the
+ * same text as the calculator's DecimalFormat ("0", "0.0", ...): rounded half
+ * even, no grouping, and a minus sign whenever the exact value is negative,
+ * so -0.001 with two decimals is "-0.00".
+ * </p>
+ * <p>
+ * Note: Every method returns null instead of giving a different answer: text
+ * with more than 18 significant digits or that is 10^19 or more, an exponent
+ * that doesn't fit, or an add or subtract that overflows a long. Callers then fall back to BigDecimal.
+ * </p>
+ */
+public final class ScaledDecimal {
+    private static final long[] POWERS = new long[19];
+
+    static {
+        POWERS[0] = 1;
+        for (int i = 1; i < POWERS.length; i++) {
+            POWERS[i] = POWERS[i - 1] * 10;
+        }
+    }
+
+    private final long unscaled;
+    private final int scale;
+    private final int decimals;
+
+    private ScaledDecimal(long unscaled, int scale, int decimals) {
+        this.unscaled = unscaled;
+        this.scale = scale;
+        this.decimals = decimals;
+    }
+
+    /**
+     * @param unscaled digits of the number
+     * @param scale    how many of them are after the decimal point
+     */
+    public static ScaledDecimal of(long unscaled, int scale) {
+        if (unscaled == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("Long.MIN_VALUE has no positive counterpart");
+        }
+        return new ScaledDecimal(unscaled, scale, Math.max(0, scale));
+    }
+
+    /**
+     * Parses text the way new BigDecimal(text) does
+     *
+     * @param text e.g. "12.50", "-3", "1.5e-3"
+     * @return the number, or null when text isn't a number or needs more than
+     *         18 significant digits
+     */
+    public static ScaledDecimal parse(String text) {
+        final int length = text.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long unscaled = 0;
+        int digits = 0; // significant digits so far, leading zeros don't count
+        int fraction = 0;
+        boolean any = false;
+        boolean point = false;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                any = true;
+                if (point) {
+                    fraction++;
+                }
+                if (unscaled == 0 && c == '0') {
+                    continue;
+                }
+                if (++digits > 18) {
+                    return null;
+                }
+                unscaled = unscaled * 10 + (c - '0');
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (!any) {
+            return null;
+        }
+        long exponent = 0;
+        if (i < length) {
+            char c = text.charAt(i);
+            if (c != 'e' && c != 'E') {
+                return null;
+            }
+            i++;
+            boolean negativeExponent = false;
+            if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+                negativeExponent = text.charAt(i) == '-';
+                i++;
+            }
+            if (i == length) {
+                return null;
+            }
+            for (; i < length; i++) {
+                c = text.charAt(i);
+                if (c < '0' || c > '9' || exponent > Integer.MAX_VALUE) {
+                    return null;
+                }
+                exponent = exponent * 10 + (c - '0');
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+        long scale = fraction - exponent;
+        if (scale > Integer.MAX_VALUE || scale < -18) {
+            return null; // beyond 18 digits before the point, or more than an int of them after
+        }
+        return new ScaledDecimal(negative ? -unscaled : unscaled, (int) scale, fraction);
+    }
+
+    /**
+     * @return digits written after the decimal point of the parsed text, up
+     *         to any exponent ("1.50e3" has 2); for computed numbers the scale,
+     *         at least 0
+     */
+    public int decimals() {
+        return decimals;
+    }
+
+    public long unscaled() {
+        return unscaled;
+    }
+
+    public int scale() {
+        return scale;
+    }
+
+    /**
+     * @return this + other, or null when it doesn't fit
+     */
+    public ScaledDecimal add(ScaledDecimal other) {
+        return combine(other, false);
+    }
+
+    /**
+     * @return this - other, or null when it doesn't fit
+     */
+    public ScaledDecimal subtract(ScaledDecimal other) {
+        return combine(other, true);
+    }
+
+    private ScaledDecimal combine(ScaledDecimal other, boolean subtract) {
+        int resultScale = Math.max(scale, other.scale);
+        long sum = sum(unscaled, scale, subtract ? -other.unscaled : other.unscaled, other.scale, resultScale);
+        return sum == Long.MIN_VALUE ? null : new ScaledDecimal(sum, resultScale, Math.max(0, resultScale));
+    }
+
+    /**
+     * Adds two unscaled values at a common scale, for callers keeping numbers
+     * in primitive arrays
+     *
+     * @param resultScale at least the larger of leftScale and rightScale
+     * @return the unscaled sum at resultScale, or Long.MIN_VALUE when it
+     *         doesn't fit
+     */
+    static long sum(long left, int leftScale, long right, int rightScale, int resultScale) {
+        left = rescale(left, (long) resultScale - leftScale);
+        right = rescale(right, (long) resultScale - rightScale);
+        if (left == Long.MIN_VALUE || right == Long.MIN_VALUE) {
+            return Long.MIN_VALUE;
+        }
+        long sum = left + right;
+        if (((left ^ sum) & (right ^ sum)) < 0) {
+            return Long.MIN_VALUE; // overflow
+        }
+        return sum;
+    }
+
+    // value * 10^shift, Long.MIN_VALUE when it doesn't fit
+    private static long rescale(long value, long shift) {
+        if (value == 0 || shift == 0) {
+            return value;
+        }
+        if (shift >= POWERS.length) {
+            return Long.MIN_VALUE;
+        }
+        long power = POWERS[(int) shift];
+        long high = Math.multiplyHigh(value, power);
+        long result = value * power;
+        if (high != (result >> 63)) {
+            return Long.MIN_VALUE;
+        }
+        return result;
+    }
+
+    /**
+     * Appends this number rounded half even to the given number of decimals,
+     * the same text as new DecimalFormat("0.00...").format(toBigDecimal())
+     * for the default locale
+     *
+     * @param places digits after the decimal point
+     * @param out    receives the text
+     * @return out
+     */
+    public StringBuilder format(int places, StringBuilder out) {
+        return format(unscaled, scale, places, out);
+    }
+
+    // format(int, StringBuilder) of unscaled * 10^-scale, unscaled not Long.MIN_VALUE
+    static StringBuilder format(long unscaled, int scale, int places, StringBuilder out) {
+        final Symbols symbols = Symbols.DEFAULT;
+        long magnitude = Math.abs(unscaled);
+        if (unscaled < 0) {
+            out.append(symbols.minus); // even when it rounds to zero, like DecimalFormat
+        }
+        int digitsScale = scale;
+        if (scale > places) {
+            magnitude = roundHalfEven(magnitude, (long) scale - places);
+            digitsScale = places;
+        }
+        // magnitude * 10^-digitsScale, digitsScale <= places
+        String digits = Long.toString(magnitude);
+        if (digitsScale <= 0) {
+            out.append(digits);
+            if (magnitude != 0) {
+                appendZeros(out, -(long) digitsScale);
+            }
+            if (places > 0) {
+                out.append(symbols.point);
+                appendZeros(out, places);
+            }
+            return out;
+        }
+        int whole = digits.length() - digitsScale;
+        if (whole > 0) {
+            out.append(digits, 0, whole);
+        } else {
+            out.append('0');
+        }
+        if (places > 0) {
+            out.append(symbols.point);
+            if (whole < 0) {
+                appendZeros(out, -whole);
+            }
+            out.append(digits, Math.max(0, whole), digits.length());
+            appendZeros(out, places - digitsScale);
+        }
+        return out;
+    }
+
+    /**
+     * @return {@link #format(int, StringBuilder)} as a String
+     */
+    public String format(int places) {
+        return format(places, new StringBuilder(24)).toString();
+    }
+
+    /**
+     * @return true when the default locale writes numbers with ASCII digits,
+     *         which {@link #format} needs; otherwise use DecimalFormat
+     */
+    public static boolean canFormat() {
+        return Symbols.DEFAULT.asciiDigits;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toString();
+    }
+
+    // magnitude / 10^drop rounded half even
+    private static long roundHalfEven(long magnitude, long drop) {
+        if (drop >= POWERS.length) {
+            // 10^19 and up: magnitude < 10^19, so only drop 19 can round up to 1
+            return drop == 19 && magnitude > 5_000_000_000_000_000_000L ? 1 : 0;
+        }
+        long power = POWERS[(int) drop];
+        long quotient = magnitude / power;
+        long remainder = magnitude % power;
+        long half = power / 2;
+        if (remainder > half || remainder == half && (quotient & 1) != 0) {
+            quotient++;
+        }
+        return quotient;
+    }
+
+    private static void appendZeros(StringBuilder out, long count) {
+        for (long i = 0; i < count; i++) {
+            out.append('0');
+        }
+    }
+
+    // what DecimalFormat(String) writes for the default locale, read off its own output
+    private static final class Symbols {
+        static final Symbols DEFAULT = new Symbols(new DecimalFormat("0.0").format(new BigDecimal("-1.5")));
+
+        final String minus;
+        final String point;
+        final boolean asciiDigits;
+
+        Symbols(String sample) {
+            int one = sample.indexOf('1');
+            int five = sample.indexOf('5');
+            asciiDigits = one != -1 && five > one;
+            minus = asciiDigits ? sample.substring(0, one) : "-";
+            point = asciiDigits ? sample.substring(one + 1, five) : ".";
+        }
+    }
+}
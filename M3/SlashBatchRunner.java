@@ -0,0 +1,81 @@
+package M3;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Runs a script of slash commands without prompts
+ *
+ * <p>
+ * Input is read through a 1 MB buffer and answers are collected in a 1 MB
+ * buffered writer, which is flushed every {@code flushEvery} commands (0 means
+ * only when the buffer fills) and at the end. The output is what the console
+ * would print for the same lines minus the prompts, header and footer; a /quit
+ * line answers "Goodbye!" and stops the run, and the end of the input just
+ * ends it.
+ * </p>
+ */
+public final class SlashBatchRunner {
+    public static final int BUFFER_SIZE = 1 << 20;
+
+    private final CommandRegistry registry;
+    private final int flushEvery;
+
+    /**
+     * @param registry   commands to run
+     * @param flushEvery flush the output after this many commands, 0 to flush
+     *                   only when the buffer is full and at the end
+     */
+    public SlashBatchRunner(CommandRegistry registry, int flushEvery) {
+        if (flushEvery < 0) {
+            throw new IllegalArgumentException("flushEvery must not be negative");
+        }
+        this.registry = registry;
+        this.flushEvery = flushEvery;
+    }
+
+    /**
+     * Runs every command line of in
+     *
+     * @param in  UTF-8 command lines, not closed
+     * @param out receives the UTF-8 answers, flushed but not closed
+     * @return number of commands run
+     * @throws IOException when reading or writing fails
+     */
+    public long run(InputStream in, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        StringBuilder response = new StringBuilder(256);
+        char[] chars = new char[256];
+        long commands = 0;
+        int sinceFlush = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            response.setLength(0);
+            SlashCommand.Result result = registry.dispatch(line, response);
+            int length = response.length();
+            if (chars.length < length) {
+                chars = new char[Math.max(length, chars.length * 2)];
+            }
+            response.getChars(0, length, chars, 0); // Writer.append(CharSequence) would copy to a String first
+            writer.write(chars, 0, length);
+            commands++;
+            if (result == SlashCommand.Result.QUIT) {
+                break;
+            }
+            if (flushEvery > 0 && ++sinceFlush == flushEvery) {
+                writer.flush();
+                sinceFlush = 0;
+            }
+        }
+        writer.flush();
+        return commands;
+    }
+}
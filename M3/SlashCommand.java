@@ -0,0 +1,26 @@
+package M3;
+
+/**
+ * One slash command (the part after the name is passed in as args)
+ */
+@FunctionalInterface
+public interface SlashCommand {
+
+    /**
+     * How a command line was handled, lets callers stop the loop and count
+     * errors without parsing the response text
+     */
+    enum Result {
+        OK,
+        USAGE_ERROR,
+        UNHANDLED,
+        QUIT
+    }
+
+    /**
+     * @param args text after the command name, trimmed, empty when none
+     * @param out  receives the response, each line ending with '\n'
+     * @return how the command went
+     */
+    Result execute(String args, StringBuilder out);
+}
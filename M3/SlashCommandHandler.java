@@ -12,6 +12,11 @@ Challenge 2: Simple Slash Command Handler
 - Print an error for unrecognized commands
 - Print errors for invalid command formats (when applicable)
 - Capture 3 variations of each command except "/quit"
+- Run with --batch [script|-] [flushEvery] for batch mode: no prompts, buffered answers (see SlashBatchRunner);
+  without it the prompts are kept even for piped input
+- /stats prints per-command usage and latency; -Dslash.statsFile=<file> [-Dslash.statsSeconds=10] also writes it
+  to a file periodically (see CommandMetrics)
+- Run with --server [port] to serve the same commands over TCP on loopback (see SlashCommandServer)
 */
 
 /* SOURCES I looked at (W3Schools – beginner friendly)
@@ -20,15 +25,39 @@ Challenge 2: Simple Slash Command Handler
    - Math.random():        https://www.w3schools.com/java/java_math.asp
 */
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Scanner;
+import java.util.concurrent.ScheduledExecutorService;
 
 public class SlashCommandHandler extends BaseClass {
     private static String ucid = "nhd5"; // nhd5 / Nilkanth Dhariya / 10/12/25
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--server")) {
+            // same commands over TCP for many clients at once: --server [port]
+            SlashCommandServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--batch")) {
+            // --batch [script file, "-" or nothing for stdin] [flushEvery]: no prompts, buffered answers
+            runBatch(args.length > 1 ? args[1] : "-", args.length > 2 ? Integer.parseInt(args[2]) : 0);
+            return;
+        }
+        if (args.length > 0) {
+            System.out.println("Usage: java M3.SlashCommandHandler [--batch [script|-] [flushEvery] | --server [port]]");
+            return;
+        }
         printHeader(ucid, 2, "Objective: Implement a simple slash command parser.");
 
         Scanner scanner = new Scanner(System.in);
+        // commands are looked up by name in a registry, see SlashCommands for /greet, /echo, /roll, /quit
+        CommandRegistry registry = SlashCommands.defaults();
+        ScheduledExecutorService statsDump = registry.metrics().dumpIfConfigured(); // -Dslash.statsFile=<file>
+        StringBuilder response = new StringBuilder();
 
         // main REPL loop
         while (true) {
@@ -38,85 +67,27 @@ public class SlashCommandHandler extends BaseClass {
                 System.out.println("Goodbye!");
                 break;
             }
-            String input = scanner.nextLine().trim();
-
-            if (input.length() == 0) {
-                System.out.println("Error: empty command. Try /greet, /roll, /echo, or /quit.");
-                continue;
-            }
-
-            // split into command and the rest
-            String[] parts = input.split("\\s+", 2);
-            String cmd = parts[0].toLowerCase();
-            String rest = (parts.length > 1) ? parts[1].trim() : "";
-
-            // /quit
-            if (cmd.equals("/quit")) {
-                System.out.println("Goodbye!");
+            response.setLength(0);
+            SlashCommand.Result result = registry.dispatch(scanner.nextLine(), response);
+            System.out.print(response);
+            if (result == SlashCommand.Result.QUIT) {
                 break;
             }
-            // /greet <name>
-            else if (cmd.equals("/greet")) {
-                if (rest.length() == 0) {
-                    System.out.println("Error: Usage is /greet <name>");
-                } else {
-                    System.out.println("Hello, " + rest + "!");
-                }
-            }
-            // /echo <message>
-            else if (cmd.equals("/echo")) {
-                if (rest.length() == 0) {
-                    System.out.println("Error: Usage is /echo <message>");
-                } else {
-                    System.out.println(rest);
-                }
-            }
-            // /roll <num>d<sides>
-            else if (cmd.equals("/roll")) {
-                if (rest.length() == 0) {
-                    System.out.println("Error: Usage is /roll <num>d<sides>  (e.g., /roll 2d6)");
-                } else {
-                    int dPos = rest.indexOf('d');
-                    if (dPos == -1) dPos = rest.indexOf('D');
-
-                    if (dPos == -1) {
-                        System.out.println("Error: bad format. Try /roll 2d6");
-                    } else {
-                        String numStr = rest.substring(0, dPos).trim();
-                        String sidesStr = rest.substring(dPos + 1).trim();
-
-                        int num = -1;
-                        int sides = -1;
-                        try {
-                            num = Integer.parseInt(numStr);
-                            sides = Integer.parseInt(sidesStr);
-                        } catch (Exception e) {
-                            // leave as -1; will error below
-                        }
-
-                        if (num < 1 || sides < 1) {
-                            System.out.println("Error: both <num> and <sides> must be positive integers.");
-                        } else {
-                            // roll num dice of 1..sides and sum them
-                            int total = 0;
-                            int i = 0;
-                            while (i < num) {
-                                int one = (int)(Math.random() * sides) + 1; // 1..sides
-                                total = total + one;
-                                i = i + 1;
-                            }
-                            System.out.println("Rolled " + num + "d" + sides + " and got " + total + "!");
-                        }
-                    }
-                }
-            }
-            // unknown command
-            else {
-                System.out.println("Unhandled command");
-            }
         }
 
+        registry.metrics().finishDump(statsDump);
         printFooter(ucid, 2);
         scanner.close();
     }
+
+    private static void runBatch(String script, int flushEvery) throws IOException {
+        CommandRegistry registry = SlashCommands.defaults();
+        ScheduledExecutorService statsDump = registry.metrics().dumpIfConfigured();
+        SlashBatchRunner runner = new SlashBatchRunner(registry, flushEvery);
+        try (InputStream in = script.equals("-") ? System.in : Files.newInputStream(Paths.get(script))) {
+            runner.run(in, System.out);
+        } finally {
+            registry.metrics().finishDump(statsDump);
+        }
+    }
 }
@@ -0,0 +1,254 @@
+package M3;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Serves the slash command protocol to many TCP clients from one thread
+ *
+ * <p>
+ * Each client sends UTF-8 command lines ending in '\n' ('\r' before it is
+ * dropped) and gets back exactly what SlashCommandHandler would print for the
+ * line, minus the prompt. Commands go through the same CommandRegistry, so
+ * the semantics are the same as the console. /quit answers "Goodbye!" and
+ * closes that connection once the answer is sent.
+ * </p>
+ * <p>
+ * Everything runs on one Selector loop with a read and a write buffer per
+ * connection. A client that stops reading its answers stops being read from
+ * once {@link #MAX_PENDING_OUTPUT} bytes are queued for it, and a line longer
+ * than {@link #MAX_LINE} bytes closes the connection.
+ * </p>
+ * <p>
+ * Usage: java M3.SlashCommandServer [port] (default 5050, loopback only)
+ * </p>
+ */
+public class SlashCommandServer implements Runnable, Closeable {
+    public static final int DEFAULT_PORT = 5050;
+    public static final int MAX_LINE = 1 << 16;
+    static final int MAX_PENDING_OUTPUT = 1 << 18;
+    private static final int BACKLOG = 4096;
+
+    private final CommandRegistry registry;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final StringBuilder response = new StringBuilder(256);
+    private volatile boolean running = true;
+
+    /**
+     * Binds the server, call {@link #run()} to start serving
+     *
+     * @param registry commands to serve
+     * @param address  address to listen on, port 0 picks a free port
+     * @throws IOException when the port can't be bound
+     */
+    public SlashCommandServer(CommandRegistry registry, InetSocketAddress address) throws IOException {
+        this.registry = registry;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        try {
+            server.bind(address, BACKLOG);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            server.close();
+            selector.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the bound port
+     */
+    public int port() {
+        return server.socket().getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isWritable()) {
+                            connection.flush();
+                        }
+                        if (key.isValid() && key.isReadable()) {
+                            connection.read();
+                        }
+                    } catch (IOException e) {
+                        connection.close(); // one client going away never stops the server
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Selector failed", e);
+        } finally {
+            closeAll();
+        }
+    }
+
+    /**
+     * Stops the loop and closes every connection
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                // closing anyway
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            // closing anyway
+        }
+    }
+
+    private final class Connection {
+        private final SocketChannel channel;
+        private SelectionKey key;
+        private ByteBuffer in = ByteBuffer.allocate(4096);
+        private ByteBuffer out = ByteBuffer.allocate(4096); // [0, position) is waiting to be sent
+        private boolean quitting;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        void read() throws IOException {
+            int read = channel.read(in);
+            if (read < 0) {
+                close();
+                return;
+            }
+            byte[] bytes = in.array();
+            int lineStart = 0;
+            int end = in.position();
+            for (int i = 0; i < end && !quitting; i++) {
+                if (bytes[i] == '\n') {
+                    int lineEnd = i > lineStart && bytes[i - 1] == '\r' ? i - 1 : i;
+                    execute(new String(bytes, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8));
+                    lineStart = i + 1;
+                }
+            }
+            if (quitting) {
+                in.clear(); // anything after /quit is ignored
+            } else {
+                in.position(lineStart).limit(end);
+                in.compact();
+                if (!in.hasRemaining()) {
+                    if (in.capacity() >= MAX_LINE) {
+                        close();
+                        return;
+                    }
+                    in = grow(in, in.capacity() * 2);
+                }
+            }
+            flush();
+        }
+
+        private void execute(String line) {
+            response.setLength(0);
+            if (registry.dispatch(line, response) == SlashCommand.Result.QUIT) {
+                quitting = true;
+            }
+            byte[] encoded = response.toString().getBytes(StandardCharsets.UTF_8);
+            if (out.remaining() < encoded.length) {
+                out = grow(out, Math.max(out.capacity() * 2, out.position() + encoded.length));
+            }
+            out.put(encoded);
+        }
+
+        void flush() throws IOException {
+            if (out.position() > 0) {
+                out.flip();
+                channel.write(out);
+                out.compact();
+            }
+            int pending = out.position();
+            if (pending > 0) {
+                int ops = SelectionKey.OP_WRITE;
+                if (!quitting && pending < MAX_PENDING_OUTPUT) {
+                    ops |= SelectionKey.OP_READ;
+                }
+                key.interestOps(ops);
+            } else if (quitting) {
+                close();
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+
+        void close() {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // already gone
+            }
+        }
+    }
+
+    // copies the [0, position) of src into a larger buffer, left positioned after it
+    private static ByteBuffer grow(ByteBuffer src, int capacity) {
+        ByteBuffer bigger = ByteBuffer.allocate(capacity);
+        src.flip();
+        bigger.put(src);
+        return bigger;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        CommandRegistry registry = SlashCommands.defaults();
+        ScheduledExecutorService statsDump = registry.metrics().dumpIfConfigured();
+        try (SlashCommandServer server = new SlashCommandServer(registry,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port))) {
+            System.out.println("Serving slash commands on " + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+                    + server.port());
+            server.run();
+        } finally {
+            registry.metrics().finishDump(statsDump);
+        }
+    }
+}
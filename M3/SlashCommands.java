@@ -0,0 +1,91 @@
+package M3;
+
+/**
+ * The built-in slash commands of Challenge 2
+ */
+public final class SlashCommands {
+
+    private SlashCommands() {
+    }
+
+    /**
+     * @return a registry with /greet, /echo, /roll, /quit and /stats, recording
+     *         into its own CommandMetrics
+     */
+    public static CommandRegistry defaults() {
+        CommandMetrics metrics = new CommandMetrics();
+        return register(new CommandRegistry().withMetrics(metrics)).register("/stats", stats(metrics));
+    }
+
+    public static CommandRegistry register(CommandRegistry registry) {
+        return registry.register("/greet", SlashCommands::greet)
+                .register("/echo", SlashCommands::echo)
+                .register("/roll", SlashCommands::roll)
+                .register("/quit", SlashCommands::quit);
+    }
+
+    // /greet <name>
+    static SlashCommand.Result greet(String args, StringBuilder out) {
+        if (args.isEmpty()) {
+            out.append("Error: Usage is /greet <name>\n");
+            return SlashCommand.Result.USAGE_ERROR;
+        }
+        out.append("Hello, ").append(args).append("!\n");
+        return SlashCommand.Result.OK;
+    }
+
+    // /echo <message>
+    static SlashCommand.Result echo(String args, StringBuilder out) {
+        if (args.isEmpty()) {
+            out.append("Error: Usage is /echo <message>\n");
+            return SlashCommand.Result.USAGE_ERROR;
+        }
+        out.append(args).append('\n');
+        return SlashCommand.Result.OK;
+    }
+
+    // /roll <num>d<sides>
+    static SlashCommand.Result roll(String args, StringBuilder out) {
+        if (args.isEmpty()) {
+            out.append("Error: Usage is /roll <num>d<sides>  (e.g., /roll 2d6)\n");
+            return SlashCommand.Result.USAGE_ERROR;
+        }
+        int dPos = args.indexOf('d');
+        if (dPos == -1) {
+            dPos = args.indexOf('D');
+        }
+        if (dPos == -1) {
+            out.append("Error: bad format. Try /roll 2d6\n");
+            return SlashCommand.Result.USAGE_ERROR;
+        }
+        int num = -1;
+        int sides = -1;
+        try {
+            num = Integer.parseInt(args.substring(0, dPos).trim());
+            sides = Integer.parseInt(args.substring(dPos + 1).trim());
+        } catch (NumberFormatException e) {
+            // leave as -1; will error below
+        }
+        if (num < 1 || sides < 1) {
+            out.append("Error: both <num> and <sides> must be positive integers.\n");
+            return SlashCommand.Result.USAGE_ERROR;
+        }
+        long total = DiceEngine.roll(num, sides);
+        out.append("Rolled ").append(num).append('d').append(sides).append(" and got ").append(total).append("!\n");
+        return SlashCommand.Result.OK;
+    }
+
+    // /stats: usage and latency of every command so far
+    static SlashCommand stats(CommandMetrics metrics) {
+        return (args, out) -> {
+            metrics.report(out);
+            return SlashCommand.Result.OK;
+        };
+    }
+
+    // /quit
+    static SlashCommand.Result quit(String args, StringBuilder out) {
+        out.append("Goodbye!\n");
+        return SlashCommand.Result.QUIT;
+    }
+}
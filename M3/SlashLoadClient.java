@@ -0,0 +1,214 @@
+package M3;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * Load generator for SlashCommandServer
+ *
+ * <p>
+ * Opens the given number of loopback connections and drives them all from one
+ * Selector. Every connection sends one command, waits for its answer line and
+ * sends the next, cycling through a fixed mix of /greet, /echo, /roll and
+ * unknown commands, then ends with /quit. The time from sending a command to
+ * reading its answer is recorded for every command and reported as p50, p99
+ * and max along with the overall commands per second.
+ * </p>
+ * <p>
+ * Usage: java M3.SlashLoadClient [clients] [commandsPerClient] [port]
+ * (defaults: 1000 1000; without a port a server is started in this process)
+ * </p>
+ */
+public class SlashLoadClient {
+    private static final String[] SCRIPT = { "/greet Bob", "/echo the quick brown fox", "/roll 3d6",
+            "/ROLL 1000000000d6", "  /Greet   Alice  ", "/unknown", "/echo", "/roll 2x6" };
+    private static final byte[][] SCRIPT_BYTES = new byte[SCRIPT.length][];
+    private static final byte[] QUIT = "/quit\n".getBytes(StandardCharsets.UTF_8);
+
+    static {
+        for (int i = 0; i < SCRIPT.length; i++) {
+            SCRIPT_BYTES[i] = (SCRIPT[i] + "\n").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private final InetSocketAddress address;
+    private final int clients;
+    private final int commandsPerClient;
+
+    public SlashLoadClient(InetSocketAddress address, int clients, int commandsPerClient) {
+        if (clients < 1 || commandsPerClient < 1) {
+            throw new IllegalArgumentException("clients and commandsPerClient must be positive");
+        }
+        this.address = address;
+        this.clients = clients;
+        this.commandsPerClient = commandsPerClient;
+    }
+
+    /**
+     * Runs every client to completion
+     *
+     * @return throughput and latency of the run
+     * @throws IOException when a connection fails
+     */
+    public Stats run() throws IOException {
+        final long[] latencies = new long[clients * commandsPerClient];
+        final long start = System.nanoTime();
+        int open = 0;
+        try (Selector selector = Selector.open()) {
+            for (int c = 0; c < clients; c++) {
+                SocketChannel channel = SocketChannel.open(address);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.configureBlocking(false);
+                Client client = new Client(channel, c);
+                client.key = channel.register(selector, SelectionKey.OP_READ, client);
+                client.send();
+                open++;
+            }
+            while (open > 0) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Client client = (Client) key.attachment();
+                    if (key.isWritable()) {
+                        client.write();
+                    }
+                    if (key.isValid() && key.isReadable() && client.read(latencies)) {
+                        open--;
+                    }
+                }
+            }
+        } finally {
+            if (open > 0) {
+                System.out.println(open + " clients did not finish");
+            }
+        }
+        return new Stats(latencies, System.nanoTime() - start);
+    }
+
+    private final class Client {
+        private final SocketChannel channel;
+        private final int id;
+        private final ByteBuffer in = ByteBuffer.allocate(4096);
+        private ByteBuffer pending;
+        private SelectionKey key;
+        private int sent;
+        private int answered;
+        private long sentAt;
+
+        Client(SocketChannel channel, int id) {
+            this.channel = channel;
+            this.id = id;
+        }
+
+        void send() throws IOException {
+            byte[] command = sent < commandsPerClient ? SCRIPT_BYTES[(id + sent) % SCRIPT_BYTES.length] : QUIT;
+            sent++;
+            pending = ByteBuffer.wrap(command);
+            sentAt = System.nanoTime();
+            write();
+        }
+
+        void write() throws IOException {
+            channel.write(pending);
+            key.interestOps(pending.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                    : SelectionKey.OP_READ);
+        }
+
+        /**
+         * @return true when this client is done and closed
+         */
+        boolean read(long[] latencies) throws IOException {
+            if (channel.read(in) < 0) {
+                channel.close();
+                if (answered <= commandsPerClient) {
+                    throw new IOException("Server closed client " + id + " early");
+                }
+                return true;
+            }
+            byte[] bytes = in.array();
+            int end = in.position();
+            int lineStart = 0;
+            for (int i = 0; i < end; i++) {
+                if (bytes[i] != '\n') {
+                    continue;
+                }
+                lineStart = i + 1;
+                if (answered < commandsPerClient) {
+                    latencies[id * commandsPerClient + answered] = System.nanoTime() - sentAt;
+                }
+                answered++;
+                if (answered > commandsPerClient) {
+                    channel.close(); // that was the answer to /quit
+                    return true;
+                }
+                send();
+            }
+            in.position(lineStart).limit(end);
+            in.compact();
+            return false;
+        }
+    }
+
+    /**
+     * Totals of one run
+     */
+    public static class Stats {
+        public final long commands;
+        public final long nanos;
+        public final long p50;
+        public final long p99;
+        public final long max;
+
+        Stats(long[] latencies, long nanos) {
+            Arrays.sort(latencies);
+            this.commands = latencies.length;
+            this.nanos = nanos;
+            this.p50 = latencies[(int) (latencies.length * 0.50)];
+            this.p99 = latencies[(int) (latencies.length * 0.99)];
+            this.max = latencies[latencies.length - 1];
+        }
+
+        @Override
+        public String toString() {
+            double seconds = nanos / 1e9;
+            return String.format("%,d commands in %.3f s (%,.0f commands/s), latency p50 %.1f us, p99 %.1f us, max %.1f us",
+                    commands, seconds, commands / seconds, p50 / 1e3, p99 / 1e3, max / 1e3);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int commandsPerClient = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        SlashCommandServer server = null;
+        int port;
+        if (args.length > 2) {
+            port = Integer.parseInt(args[2]);
+        } else {
+            server = new SlashCommandServer(SlashCommands.defaults(),
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            port = server.port();
+            Thread thread = new Thread(server, "slash-server");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        try {
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+            System.out.println(new SlashLoadClient(address, clients, commandsPerClient).run());
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+}
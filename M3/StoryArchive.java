@@ -0,0 +1,356 @@
+package M3;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+
+/**
+ * Single file archive of Mad Libs stories
+ *
+ * <p>
+ * Layout (big-endian): a 24 byte header (magic "MLPK", version, story count,
+ * a reserved int, offset of the offset table), the stories, then the offset table with one
+ * long per story plus the end of the last one. Each story is its file name
+ * (2 byte length + UTF-8), the file's size and modification time (-1 for
+ * stories that weren't files), its placeholder spans (count + ints, see
+ * {@link MadLibsTemplate#placeholderSpans(String)}) and its UTF-8 text (4
+ * byte length + bytes).
+ * </p>
+ * <p>
+ * {@link #open(Path)} maps the whole file once and reads only the header and
+ * the offset table, which it checks against the file size, and
+ * {@link #load(int)} jumps straight to a story through the offset table, so
+ * loading a story costs the same for a hundred stories or a million (opening
+ * reads 8 bytes per story). Build one with the main method, or with
+ * {@link Builder} for stories that aren't files. Like StoryIndex,
+ * {@link #load(int, Path)} checks the story file's size and time and reads
+ * the file instead when it was edited after packing.
+ * </p>
+ * <p>
+ * Usage: java M3.StoryArchive [folder] [archive] (defaults: M3/stories M3/stories.pack)
+ * </p>
+ */
+public final class StoryArchive implements Closeable {
+    static final int MAGIC = 0x4D4C504B; // "MLPK"
+    static final int VERSION = 2;
+    private static final int HEADER = 4 + 4 + 4 + 4 + 8;
+    // name length, size, time, span count and text length of an empty story
+    private static final int MIN_STORY = 2 + 16 + 4 + 4;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final int size;
+    private final int table;
+
+    private StoryArchive(FileChannel channel, MappedByteBuffer map, int size, int table) {
+        this.channel = channel;
+        this.map = map;
+        this.size = size;
+        this.table = table;
+    }
+
+    /**
+     * Maps an archive and checks its header and offset table
+     *
+     * @param archive file written by {@link Builder}
+     * @return the open archive
+     * @throws IOException when the file can't be read, is not an archive, has
+     *                     offsets outside the file or is too large to map at
+     *                     once (2 GB)
+     */
+    public static StoryArchive open(Path archive) throws IOException {
+        FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ);
+        try {
+            long length = channel.size();
+            if (length < HEADER || length > Integer.MAX_VALUE) {
+                throw new IOException("Not a story archive (size " + length + "): " + archive);
+            }
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            int size = map.getInt(8);
+            long table = map.getLong(16);
+            if (map.getInt(0) != MAGIC || map.getInt(4) != VERSION || size < 0 || table < HEADER
+                    || table + 8L * (size + 1) > length) {
+                throw new IOException("Not a story archive: " + archive);
+            }
+            // the stories fill HEADER..table in order, so every record stays inside the file
+            long previous = HEADER;
+            for (int i = 0; i <= size; i++) {
+                long offset = map.getLong((int) table + 8 * i);
+                boolean bad = i == 0 ? offset != HEADER : offset < previous + MIN_STORY;
+                if (bad || offset > table || i == size && offset != table) {
+                    throw new IOException("Corrupt story archive (offset " + i + " is " + offset + "): " + archive);
+                }
+                previous = offset;
+            }
+            return new StoryArchive(channel, map, size, (int) table);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of stories
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return file name story i was built from
+     * @throws IOException when the name runs past the story's record
+     */
+    public String name(int i) throws IOException {
+        int at = start(i);
+        byte[] name = new byte[map.getShort(at) & 0xFFFF];
+        check(i, at + 2L + name.length + 16 + 4);
+        map.get(at + 2, name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes story i and compiles it with its stored spans
+     *
+     * @param i story number, 0 to size() - 1
+     * @return the compiled story
+     * @throws IOException when the story's record is corrupt
+     */
+    public MadLibsTemplate load(int i) throws IOException {
+        int at = start(i);
+        at += 2 + (map.getShort(at) & 0xFFFF) + 16; // skip the name, size and time
+        check(i, at + 4L);
+        int spanCount = map.getInt(at);
+        if (spanCount < 0 || spanCount % 2 != 0) {
+            throw corrupt(i);
+        }
+        at += 4;
+        check(i, at + 4L * spanCount + 4);
+        int[] spans = new int[spanCount];
+        for (int s = 0; s < spans.length; s++, at += 4) {
+            spans[s] = map.getInt(at);
+        }
+        int textLength = map.getInt(at);
+        if (textLength < 0) {
+            throw corrupt(i);
+        }
+        byte[] text = new byte[textLength];
+        check(i, at + 4L + textLength);
+        map.get(at + 4, text);
+        String story = new String(text, StandardCharsets.UTF_8);
+        // placeholders are in order, inside the text and at least "<>"
+        int from = 0;
+        for (int s = 0; s < spans.length; s += 2) {
+            if (spans[s] < from || spans[s + 1] < spans[s] + 2 || spans[s + 1] > story.length()) {
+                throw corrupt(i);
+            }
+            from = spans[s + 1];
+        }
+        return MadLibsTemplate.fromSpans(story, spans);
+    }
+
+    /**
+     * Loads story i, or compiles its file in folder when the file's size or
+     * modification time no longer match the packed ones
+     *
+     * @param i      story number, 0 to size() - 1
+     * @param folder folder the archive was built from
+     * @return the compiled story
+     * @throws IOException when the story's file was removed or can't be read
+     */
+    public MadLibsTemplate load(int i, Path folder) throws IOException {
+        int at = start(i);
+        at += 2 + (map.getShort(at) & 0xFFFF);
+        check(i, at + 16L);
+        long fileSize = map.getLong(at);
+        if (fileSize >= 0) {
+            Path file = folder.resolve(name(i));
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (attributes.size() != fileSize || attributes.lastModifiedTime().toMillis() != map.getLong(at + 8)) {
+                return MadLibsTemplate.compile(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+            }
+        }
+        return load(i);
+    }
+
+    /**
+     * Closes the file, the mapping itself is released when garbage collected
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int start(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Story " + i + " of " + size);
+        }
+        return (int) map.getLong(table + 8 * i);
+    }
+
+    // end must not pass the start of story i + 1 (open() checked the offsets themselves)
+    private void check(int i, long end) throws IOException {
+        if (end > map.getLong(table + 8 * (i + 1))) {
+            throw corrupt(i);
+        }
+    }
+
+    private static IOException corrupt(int i) {
+        return new IOException("Corrupt story archive (bad record for story " + i + ")");
+    }
+
+    /**
+     * Writes an archive one story at a time into a temporary file, which only
+     * replaces the target on {@link #commit()}; closing without committing,
+     * e.g. after add() threw, deletes it
+     */
+    public static final class Builder implements Closeable {
+        private final Path target;
+        private final Path temp;
+        private final FileChannel channel;
+        private final DataOutputStream out;
+        private long position = HEADER;
+        private long[] offsets = new long[1024];
+        private int size;
+        private boolean failed;
+        private boolean committed;
+
+        public Builder(Path target) throws IOException {
+            this.target = target.toAbsolutePath();
+            temp = this.target.resolveSibling(this.target.getFileName() + ".tmp");
+            channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER);
+            out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        }
+
+        /**
+         * Adds a story file, remembering its size and modification time
+         *
+         * @param story story file
+         * @return this builder
+         */
+        public Builder add(Path story) throws IOException {
+            BasicFileAttributes attributes = Files.readAttributes(story, BasicFileAttributes.class);
+            return add(story.getFileName().toString(), new String(Files.readAllBytes(story), StandardCharsets.UTF_8),
+                    attributes.size(), attributes.lastModifiedTime().toMillis());
+        }
+
+        /**
+         * @param name story name, e.g. its file name
+         * @param text whole story text
+         * @return this builder
+         * @throws IOException when writing fails or the archive would pass
+         *                     2 GB, which {@link StoryArchive#open(Path)} can't map
+         */
+        public Builder add(String name, String text) throws IOException {
+            return add(name, text, -1, -1);
+        }
+
+        private Builder add(String name, String text, long fileSize, long modified) throws IOException {
+            if (committed) {
+                throw new IllegalStateException("Archive already committed");
+            }
+            byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+            if (nameBytes.length > 0xFFFF) {
+                throw new IllegalArgumentException("Story name too long: " + name);
+            }
+            int[] spans = MadLibsTemplate.placeholderSpans(text);
+            byte[] textBytes = text.getBytes(StandardCharsets.UTF_8);
+            long end = position + 2 + nameBytes.length + 16 + 4 + 4L * spans.length + 4 + textBytes.length;
+            if (end + 8L * (size + 2) > Integer.MAX_VALUE) { // offsets are read back as ints
+                throw new IOException("Story archive would exceed 2 GB at story " + size + ": " + name);
+            }
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            offsets[size++] = position;
+            failed = true; // until the whole story is written
+            out.writeShort(nameBytes.length);
+            out.write(nameBytes);
+            out.writeLong(fileSize);
+            out.writeLong(modified);
+            out.writeInt(spans.length);
+            for (int span : spans) {
+                out.writeInt(span);
+            }
+            out.writeInt(textBytes.length);
+            out.write(textBytes);
+            failed = false;
+            position = end;
+            return this;
+        }
+
+        /**
+         * Writes the offset table and header and moves the file into place
+         *
+         * @throws IllegalStateException when an earlier add() failed
+         */
+        public void commit() throws IOException {
+            if (failed) {
+                throw new IllegalStateException("A story failed to write, the archive is incomplete");
+            }
+            if (committed) {
+                return;
+            }
+            long table = position;
+            for (int i = 0; i < size; i++) {
+                out.writeLong(offsets[i]);
+            }
+            out.writeLong(table); // end of the last story
+            out.flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(0).putLong(table).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            out.close();
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        /**
+         * Deletes the temporary file unless {@link #commit()} moved it into
+         * place, the target is left as it was
+         */
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            try {
+                out.close();
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path folder = Paths.get(args.length > 0 ? args[0] : "M3/stories");
+        Path archive = Paths.get(args.length > 1 ? args[1] : "M3/stories.pack");
+        long start = System.nanoTime();
+        int count = 0;
+        try (Builder builder = new Builder(archive)) {
+            for (Path story : StoryIndex.list(folder)) {
+                builder.add(story);
+                count++;
+            }
+            builder.commit();
+        }
+        System.out.println(String.format("Packed %,d stories into %s (%,d bytes) in %.1f ms", count, archive,
+                Files.size(archive), (System.nanoTime() - start) / 1e6));
+    }
+}
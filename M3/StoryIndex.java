@@ -0,0 +1,236 @@
+package M3;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Persistent index of a stories folder for MadLibsGenerator
+ *
+ * <p>
+ * The index file holds the folder's modification time, an offset table and
+ * one entry per story: file name, size, modification time and the placeholder
+ * spans found by {@link MadLibsTemplate#placeholderSpans(String)}. Opening it
+ * reads only the header, and reading entry i is two positional reads, so
+ * picking a story costs the same for 5 stories or 50,000. The folder is only
+ * listed and its stories only scanned when the folder's modification time no
+ * longer matches (a story was added, removed or renamed), which rebuilds the
+ * index.
+ * </p>
+ * <p>
+ * Like the original listing, .txt files are used, or every file when there
+ * are none. A story edited in place doesn't change the folder's time, so
+ * {@link #load(int)} checks the file's own size and time and scans it again
+ * when they differ.
+ * </p>
+ * <p>
+ * Note: Keep the index file outside the folder, writing it would change the
+ * folder's time.
+ * </p>
+ */
+public final class StoryIndex implements Closeable {
+    static final int MAGIC = 0x4D4C4958; // "MLIX"
+    static final int VERSION = 1;
+    private static final int HEADER = 4 + 4 + 8 + 4;
+
+    private final Path folder;
+    private final FileChannel channel;
+    private final int size;
+
+    private StoryIndex(Path folder, FileChannel channel, int size) {
+        this.folder = folder;
+        this.channel = channel;
+        this.size = size;
+    }
+
+    /**
+     * Opens the index of folder, rebuilding indexFile first when it is
+     * missing, unreadable or older than the folder
+     *
+     * @param folder    stories folder
+     * @param indexFile where the index lives, outside folder
+     * @return the open index, close it when done
+     * @throws IOException when the folder or a story can't be read
+     */
+    public static StoryIndex open(Path folder, Path indexFile) throws IOException {
+        long folderTime = Files.getLastModifiedTime(folder).toMillis();
+        if (Files.isRegularFile(indexFile)) {
+            FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            if (readFully(channel, header, 0) && header.getInt(0) == MAGIC && header.getInt(4) == VERSION
+                    && header.getLong(8) == folderTime) {
+                return new StoryIndex(folder, channel, header.getInt(16));
+            }
+            channel.close();
+        }
+        FileChannel channel;
+        try {
+            build(folder, folderTime, indexFile);
+            channel = FileChannel.open(indexFile, StandardOpenOption.READ);
+        } catch (IOException e) {
+            // can't write next to the folder (read-only checkout): index into a temporary file for this run
+            Path temp = Files.createTempFile("stories", ".idx");
+            build(folder, folderTime, temp);
+            channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE);
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        readFully(channel, header, 0);
+        return new StoryIndex(folder, channel, header.getInt(16));
+    }
+
+    /**
+     * @return number of stories
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return file name of story i
+     */
+    public String name(int i) throws IOException {
+        return entry(i).name;
+    }
+
+    /**
+     * Reads story i with one bulk read and compiles it with the indexed spans
+     *
+     * @param i story number, 0 to size() - 1
+     * @return the compiled story
+     * @throws IOException when the story can't be read
+     */
+    public MadLibsTemplate load(int i) throws IOException {
+        Entry entry = entry(i);
+        Path file = folder.resolve(entry.name);
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+        if (attributes.size() != entry.size || attributes.lastModifiedTime().toMillis() != entry.modified) {
+            return MadLibsTemplate.compile(text); // changed since indexing, spans may be stale
+        }
+        return MadLibsTemplate.fromSpans(text, entry.spans);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Entry entry(int i) throws IOException {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Story " + i + " of " + size);
+        }
+        boolean last = i + 1 == size;
+        ByteBuffer offsets = ByteBuffer.allocate(last ? 8 : 16); // entry i ends where entry i + 1 starts
+        if (!readFully(channel, offsets, HEADER + 8L * i)) {
+            throw new IOException("Story index is truncated");
+        }
+        long start = offsets.getLong(0);
+        long end = last ? channel.size() : offsets.getLong(8);
+        ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+        if (!readFully(channel, bytes, start)) {
+            throw new IOException("Story index is truncated");
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.array()));
+        Entry entry = new Entry();
+        entry.name = in.readUTF();
+        entry.size = in.readLong();
+        entry.modified = in.readLong();
+        entry.spans = new int[in.readInt()];
+        for (int s = 0; s < entry.spans.length; s++) {
+            entry.spans[s] = in.readInt();
+        }
+        return entry;
+    }
+
+    // scans every story and writes the index to a temporary file, then moves it over indexFile
+    private static void build(Path folder, long folderTime, Path indexFile) throws IOException {
+        List<Path> stories = list(folder);
+        ByteArrayOutputStream entries = new ByteArrayOutputStream(stories.size() * 64);
+        DataOutputStream entryOut = new DataOutputStream(entries);
+        long[] offsets = new long[stories.size()];
+        long entriesStart = HEADER + 8L * stories.size();
+        for (int i = 0; i < stories.size(); i++) {
+            Path story = stories.get(i);
+            BasicFileAttributes attributes = Files.readAttributes(story, BasicFileAttributes.class);
+            int[] spans = MadLibsTemplate
+                    .placeholderSpans(new String(Files.readAllBytes(story), StandardCharsets.UTF_8));
+            offsets[i] = entriesStart + entryOut.size();
+            entryOut.writeUTF(story.getFileName().toString());
+            entryOut.writeLong(attributes.size());
+            entryOut.writeLong(attributes.lastModifiedTime().toMillis());
+            entryOut.writeInt(spans.length);
+            for (int span : spans) {
+                entryOut.writeInt(span);
+            }
+        }
+        Path absolute = indexFile.toAbsolutePath();
+        Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+        try (OutputStream file = Files.newOutputStream(temp);
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(folderTime);
+            out.writeInt(stories.size());
+            for (long offset : offsets) {
+                out.writeLong(offset);
+            }
+            entries.writeTo(out);
+        }
+        Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // .txt files in name order, or every regular file when there are none
+    static List<Path> list(Path folder) throws IOException {
+        List<Path> text = new ArrayList<>();
+        List<Path> all = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folder)) {
+            for (Path file : files) {
+                if (!Files.isRegularFile(file)) {
+                    continue;
+                }
+                all.add(file);
+                if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".txt")) {
+                    text.add(file);
+                }
+            }
+        }
+        List<Path> pool = text.isEmpty() ? all : text;
+        Collections.sort(pool);
+        return pool;
+    }
+
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Entry {
+        String name;
+        long size;
+        long modified;
+        int[] spans;
+    }
+}
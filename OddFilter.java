@@ -0,0 +1,50 @@
+package M2;
+
+/**
+ * Compacts the odd values of an int array into another array
+ *
+ * <p>
+ * Same rule as Problem1.printOdds ({@code value % 2 != 0}, negative odds
+ * included) but without printing, so the filtering engine can be swapped.
+ * </p>
+ */
+public interface OddFilter {
+
+    /**
+     * Copies the odd values of {@code src[0..length)} to the front of
+     * {@code dst}, keeping their order
+     * 
+     * @param src    values to check
+     * @param length number of values of src to check
+     * @param dst    receives the odd values, must hold at least {@code length}
+     *               values (slots past the returned count may be overwritten)
+     * @return number of odd values written to dst
+     */
+    int compact(int[] src, int length, int[] dst);
+
+    /**
+     * @return the branch-free scalar engine, which is the fastest on mixed
+     *         parity data on JDK 17 (about twice as fast as
+     *         {@link #vector()} there, see VectorOddFilter)
+     */
+    static OddFilter best() {
+        return new ScalarOddFilter();
+    }
+
+    /**
+     * @return the Vector API engine when the jdk.incubator.vector module is
+     *         present (run with --add-modules jdk.incubator.vector), otherwise
+     *         the scalar one; only worth it for data with long runs of one
+     *         parity
+     */
+    static OddFilter vector() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (OddFilter) Class.forName("M2.VectorOddFilter").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // class not compiled in or the module can't be linked, use the scalar loop
+            }
+        }
+        return new ScalarOddFilter();
+    }
+}
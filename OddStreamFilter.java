@@ -0,0 +1,154 @@
+package M2;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming version of Problem1.printOdds
+ *
+ * <p>
+ * Reads whitespace or comma separated ints from a stream in fixed-size chunks,
+ * keeps the odd values (same {@code value % 2 != 0} rule, so negative odds are
+ * kept) and writes them comma separated as they are found. Memory use is the
+ * read buffer plus one int chunk no matter how large the input is, and the
+ * "no leading/trailing comma" rule holds across chunk boundaries.
+ * </p>
+ * <p>
+ * Usage: java M2.OddStreamFilter [file] (reads stdin when no file is given)
+ * </p>
+ */
+public class OddStreamFilter {
+    public static final int DEFAULT_CHUNK = 8192;
+    private static final int READ_BUFFER = 1 << 16;
+
+    private final ConsoleWriter out;
+    private final byte[] readBuffer = new byte[READ_BUFFER];
+    private final int[] chunk;
+    private final int[] odds;
+    private final OddFilter engine;
+    private int chunkSize;
+    private boolean printedOne;
+    private long written;
+
+    // number currently being parsed, carried over when it straddles two reads
+    private long pending;
+    private boolean pendingNegative;
+    private boolean inNumber;
+
+    public OddStreamFilter(ConsoleWriter out) {
+        this(out, DEFAULT_CHUNK);
+    }
+
+    public OddStreamFilter(ConsoleWriter out, int chunkSize) {
+        this(out, chunkSize, OddFilter.best());
+    }
+
+    public OddStreamFilter(ConsoleWriter out, int chunkSize, OddFilter engine) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.out = out;
+        this.chunk = new int[chunkSize];
+        this.odds = new int[chunkSize];
+        this.engine = engine;
+    }
+
+    /**
+     * Parses every int in the stream and writes the odd ones
+     *
+     * @param in source of text ints, not closed by this method
+     * @return number of odd values written so far
+     * @throws IOException           when reading fails
+     * @throws NumberFormatException when a token is not an int
+     */
+    public long filter(InputStream in) throws IOException {
+        int read;
+        while ((read = in.read(readBuffer)) != -1) {
+            parse(readBuffer, read);
+        }
+        endNumber();
+        flushChunk();
+        out.flush();
+        return written;
+    }
+
+    /**
+     * Queues a single already parsed value
+     *
+     * @param value value to test
+     */
+    public void accept(int value) {
+        chunk[chunkSize++] = value;
+        if (chunkSize == chunk.length) {
+            flushChunk();
+        }
+    }
+
+    /**
+     * @return true when at least one odd value has been written
+     */
+    public boolean printedAny() {
+        return printedOne;
+    }
+
+    private void parse(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                pending = pending * 10 + (b - '0');
+                if (pending > 1L + Integer.MAX_VALUE) {
+                    throw new NumberFormatException("Value out of int range");
+                }
+                inNumber = true;
+            } else if (b == '-' && !inNumber && !pendingNegative) {
+                pendingNegative = true;
+            } else if (b == ' ' || b == ',' || b == '\n' || b == '\r' || b == '\t') {
+                endNumber();
+            } else {
+                throw new NumberFormatException("Unexpected character '" + (char) b + "'");
+            }
+        }
+    }
+
+    private void endNumber() {
+        if (inNumber) {
+            long value = pendingNegative ? -pending : pending;
+            if (value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Value out of int range");
+            }
+            accept((int) value);
+        } else if (pendingNegative) {
+            throw new NumberFormatException("Dangling '-'");
+        }
+        pending = 0;
+        pendingNegative = false;
+        inNumber = false;
+    }
+
+    private void flushChunk() {
+        final int found = engine.compact(chunk, chunkSize, odds);
+        for (int i = 0; i < found; i++) {
+            if (printedOne) {
+                out.write(',');
+            }
+            out.print(odds[i]);
+            printedOne = true;
+        }
+        written += found;
+        chunkSize = 0;
+    }
+
+    public static void main(String[] args) throws IOException {
+        ConsoleWriter writer = new ConsoleWriter(System.out);
+        OddStreamFilter filter = new OddStreamFilter(writer);
+        if (args.length > 0) {
+            try (InputStream in = new FileInputStream(args[0])) {
+                filter.filter(in);
+            }
+        } else {
+            filter.filter(System.in);
+        }
+        writer.newline().flush();
+    }
+}
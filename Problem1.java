@@ -23,25 +23,37 @@ public class Problem1 extends BaseClass {
         
      
 
+        writeOdds(arr, OUT);
+        OUT.flush();                            // one write for the whole line
+
+        // End Solution Edits
+        System.out.println("");
+        System.out.println("______________________________________");
+    }
+
+    /**
+     * The printOdds loop on its own so other paths (streaming, benchmarks) can
+     * reuse it with their own writer
+     * 
+     * @param arr values to check
+     * @param out writer that receives the comma separated odd values (not flushed)
+     */
+    static void writeOdds(int[] arr, ConsoleWriter out) {
         // Track to see if the odd number is already printed 
         // if we do , then print a comma before the next number 
-
-         boolean printedOne = false;
+        boolean printedOne = false;
 
         for (int value : arr) {                 // Step 1: iterate through array
             if (value % 2 != 0) {               // Step 2: check if odd
                 if (printedOne) {               // Step 3: handle commas between numbers
-                    System.out.print(",");
+                    out.write(',');
                 }
-                System.out.print(value);        // print the odd number itself
+                out.print(value);               // print the odd number itself (buffered)
                 printedOne = true;              // mark that we've printed at least one
             }
         }
-
-        // End Solution Edits
-        System.out.println("");
-        System.out.println("______________________________________");
     }
+
     public static void main(String[] args) {
         final String ucid = "nhd5"; // <-- change to your UCID
         // no edits below this line
@@ -1,11 +1,11 @@
 package M2;
 
 public class Problem2 extends BaseClass {
-    private static double[] array1 = { 0.1, 0.2, 0.3, 0.4, 0.5, 0.6 };
-    private static double[] array2 = { 1.0000001, 1.0000002, 1.0000003, 1.0000004, 1.0000005 }; 
-    private static double[] array3 = { 1.0 / 3.0, 2.0 / 3.0, 4.0 / 3.0, 8.0 / 3.0,8.0 / 3.0 }; 
-    private static double[] array4 = { 1e16, 1.0, -1e16, 2.0, -2.0, 1e-16 };
-    private static double[] array5 = { Math.PI, Math.E, Math.sqrt(2), Math.sqrt(3), Math.sqrt(5), Math.log(2),
+    static double[] array1 = { 0.1, 0.2, 0.3, 0.4, 0.5, 0.6 };
+    static double[] array2 = { 1.0000001, 1.0000002, 1.0000003, 1.0000004, 1.0000005 }; 
+    static double[] array3 = { 1.0 / 3.0, 2.0 / 3.0, 4.0 / 3.0, 8.0 / 3.0,8.0 / 3.0 }; 
+    static double[] array4 = { 1e16, 1.0, -1e16, 2.0, -2.0, 1e-16 };
+    static double[] array5 = { Math.PI, Math.E, Math.sqrt(2), Math.sqrt(3), Math.sqrt(5), Math.log(2),
             Math.log10(3) };
 
     private static void sumValues(double[] arr, int arrayNumber) {
@@ -27,9 +27,8 @@ public class Problem2 extends BaseClass {
         //  Step 2 : track sum by adding each value into the running variable 'total' (total = total + value)
         //  Step 3 : update representation by using String.format("%.2f", total) and assign to modifiedTotal - from W3 Schools
 
-          for (double value : arr) {
-            total = total + value;   // add each element to the running total
-        }
+        // compensated sum (Neumaier) so small terms next to large ones aren't lost, see Summation
+        total = Summation.sum(arr, Summation.Strategy.NEUMAIER);
       
         // Solve Challenge 2 here
         // For Chhallenge 2 
@@ -40,7 +39,8 @@ public class Problem2 extends BaseClass {
 
         
 
-         Object modifiedTotal = String.format("%.2f", total);
+        // same text as String.format("%.2f", total) without a Formatter per call, see FixedDecimalFormatter
+        Object modifiedTotal = FixedDecimalFormatter.format(total);
 
         // End Solution Edits
         System.out.println("Total Raw Value: " +total);
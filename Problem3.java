@@ -1,11 +1,11 @@
 package M2;
 
 public class Problem3 extends BaseClass {
-    private static Integer[] array1 = {42, -17, 89, -256, 1024, -4096, 50000, -123456};
-    private static Double[] array2 = {3.14159265358979, -2.718281828459, 1.61803398875, -0.5772156649, 0.0000001, -1000000.0};
-    private static Float[] array3 = {1.1f, -2.2f, 3.3f, -4.4f, 5.5f, -6.6f, 7.7f, -8.8f};
-    private static String[] array4 = {"123", "-456", "789.01", "-234.56", "0.00001", "-99999999"};
-    private static Object[] array5 = {-1, 1, 2.0f, -2.0d, "3", "-3.0"};
+    static Integer[] array1 = {42, -17, 89, -256, 1024, -4096, 50000, -123456};
+    static Double[] array2 = {3.14159265358979, -2.718281828459, 1.61803398875, -0.5772156649, 0.0000001, -1000000.0};
+    static Float[] array3 = {1.1f, -2.2f, 3.3f, -4.4f, 5.5f, -6.6f, 7.7f, -8.8f};
+    static String[] array4 = {"123", "-456", "789.01", "-234.56", "0.00001", "-99999999"};
+    static Object[] array5 = {-1, 1, 2.0f, -2.0d, "3", "-3.0"};
     private static void bePositive(Object[] arr, int arrayNumber) {
         // Only make edits between the designated "Start" and "End" comments
         printArrayInfo(arr, arrayNumber);
@@ -29,53 +29,9 @@ public class Problem3 extends BaseClass {
         // Step 4 : keep a string or make a use casting or boxing to covert the numeric value into interger, float , double
         // Sources : https://www.w3schools.com/java/ref_string_substring.asp and  https://www.w3schools.com/java/java_wrapper_classes.asp
         // Step 5 : use output[i] convertedValue to assign back to the same slot of the output array
-        switch (arrayNumber) {
-            case 1:
-                output = new Integer[arr.length];
-                break;
-            case 2:
-                output = new Double[arr.length];
-                break;
-            case 3:
-                output = new Float[arr.length];
-                break;
-            case 4:
-                output = new String[arr.length];
-                break;
-            default:
-                output = new Object[arr.length]; // mixed
-                break;
-        }
-
-        // Loop and fill output with positive values of the same type
-        for (int i = 0; i < arr.length; i++) {   // step 1
-            Object x = arr[i];
-
-            if (x instanceof Integer) {         // step 2
-                int v = (Integer) x;
-                int p = Math.abs(v);            // step 3
-                output[i] = Integer.valueOf(p); // step 4 & 5
-            } else if (x instanceof Double) {
-                double v = (Double) x;
-                double p = Math.abs(v);
-                output[i] = Double.valueOf(p);
-            } else if (x instanceof Float) {
-                float v = (Float) x;
-                float p = Math.abs(v);
-                output[i] = Float.valueOf(p);
-            } else if (x instanceof String) {
-                String s = (String) x;
-                if (s.startsWith("-")) {        // step 3 for String
-                    s = s.substring(1);
-                }
-                output[i] = s;                  // step 4 & 5
-            } else {
-                // fallback for mixed Object[] (problem 5)
-                String s = String.valueOf(x);
-                if (s.startsWith("-")) s = s.substring(1);
-                output[i] = s;
-            }
-        }
+        // One classification pass picks the output type (Integer[], Double[], Float[], String[] or
+        // Object[] for mixed input) and each element is then handled by its cached type, see AbsKernels
+        output = AbsKernels.positive(arr);
         // End Solution Edits
         System.out.println("Output: ");
         printOutputWithType(output);
@@ -1,14 +1,14 @@
 package M2;
 
 public class Problem4 extends BaseClass {
-    private static String[] array1 = { "hello world!", "java programming", "special@#$%^&characters", "numbers 123 456",
+    static String[] array1 = { "hello world!", "java programming", "special@#$%^&characters", "numbers 123 456",
             "mIxEd CaSe InPut!" };
-    private static String[] array2 = { "hello world", "java programming", "this is a title case test",
+    static String[] array2 = { "hello world", "java programming", "this is a title case test",
             "capitalize every word", "mixEd CASE input" };
-    private static String[] array3 = { "  hello   world  ", "java    programming  ",
+    static String[] array3 = { "  hello   world  ", "java    programming  ",
             "  extra    spaces  between   words   ",
             "      leading and trailing spaces      ", "multiple      spaces" };
-    private static String[] array4 = { "hello world", "java programming", "short", "a", "even" };
+    static String[] array4 = { "hello world", "java programming", "short", "a", "even" };
 
     private static void transformText(String[] arr, int arrayNumber) {
         // Only make edits between the designated "Start" and "End" comments
@@ -52,48 +52,19 @@ public class Problem4 extends BaseClass {
         
         String placeholderForModifiedPhrase = "";
         String placeholderForMiddleCharacters = "";
+        TextNormalizer normalizer = new TextNormalizer();
         
         for(int i = 0; i <arr.length; i++){
             // Start Solution Edits
 
-            String s = arr[i];
-
-            // Challenge 1: keep letters, digits, and spaces
-            s = s.replaceAll("[^A-Za-z0-9 ]", "");
-
-            // Challenge 2: Title Case (beginner approach)
-            String[] parts = s.split(" ");
-            String result = "";
-            for (int w = 0; w < parts.length; w++) {
-                String word = parts[w];
-                if (word.length() > 0) {
-                    String first = word.substring(0, 1).toUpperCase();
-                    String rest  = (word.length() > 1) ? word.substring(1).toLowerCase() : "";
-                    if (!result.isEmpty()) result += " ";
-                    result += first + rest;
-                }
-            }
-            s = result;
-
-            // Challenge 3: trim ends and collapse multiple spaces
-            s = s.trim();
-            s = s.replaceAll(" +", " ");
+            // Challenges 1-3 in a single scan (filter, Title Case, trim/collapse spaces), see TextNormalizer
+            normalizer.normalize(arr[i]);
 
             // Result 1–3
-            placeholderForModifiedPhrase = s;
+            placeholderForModifiedPhrase = normalizer.phrase();
 
             // Challenge 4: up to 3 middle chars, excluding very first and very last char
-            String middle = "Not enough characters";
-            int len = s.length();
-            if (len > 2) {
-                int mid   = len / 2;
-                int start = Math.max(1, mid - 1);          // never before index 1
-                int end   = Math.min(len - 1, start + 3);  // never include last char
-                if (start < end) {
-                    middle = s.substring(start, end);
-                }
-            }
-            placeholderForMiddleCharacters = middle;
+            placeholderForMiddleCharacters = normalizer.middle();
             
              // End Solution Edits
             System.out.println(String.format("Index[%d] \"%s\" | Middle: \"%s\"",i, placeholderForModifiedPhrase, placeholderForMiddleCharacters));
@@ -0,0 +1,27 @@
+package M2;
+
+/**
+ * Branch-free scalar odd filter
+ *
+ * <p>
+ * Every value is stored at the next output slot and the slot only advances when
+ * the value is odd ({@code value & 1} is 1 for negative odds too), so there is
+ * no data dependent branch to mispredict on mixed parity input.
+ * </p>
+ */
+public class ScalarOddFilter implements OddFilter {
+
+    @Override
+    public int compact(int[] src, int length, int[] dst) {
+        if (dst.length < length) {
+            throw new IllegalArgumentException("dst must hold at least length values");
+        }
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            int value = src[i];
+            dst[n] = value;
+            n += value & 1;
+        }
+        return n;
+    }
+}
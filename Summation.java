@@ -0,0 +1,134 @@
+package M2;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Summation strategies for double arrays
+ *
+ * <p>
+ * NAIVE is the original Problem2 loop, NEUMAIER carries the rounding error of
+ * every addition in a second variable (Kahan with the Neumaier fix for terms
+ * larger than the running sum), PAIRWISE adds halves recursively so the error
+ * grows with log(n) instead of n, and PARALLEL runs NEUMAIER per chunk on the
+ * common fork-join pool and merges the chunk sums and their compensations.
+ * </p>
+ */
+public final class Summation {
+    public enum Strategy {
+        NAIVE,
+        NEUMAIER,
+        PAIRWISE,
+        PARALLEL
+    }
+
+    // below this many values a chunk is summed on the current thread
+    static final int PARALLEL_CHUNK = 1 << 16;
+    private static final int PAIRWISE_BLOCK = 128;
+
+    private Summation() {
+    }
+
+    public static double sum(double[] values, Strategy strategy) {
+        switch (strategy) {
+            case NAIVE:
+                return naive(values, 0, values.length);
+            case NEUMAIER:
+                return neumaier(values, 0, values.length).value();
+            case PAIRWISE:
+                return pairwise(values, 0, values.length);
+            case PARALLEL:
+                return parallel(values);
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + strategy);
+        }
+    }
+
+    public static double naive(double[] values, int from, int to) {
+        double total = 0;
+        for (int i = from; i < to; i++) {
+            total = total + values[i];
+        }
+        return total;
+    }
+
+    public static double pairwise(double[] values, int from, int to) {
+        if (to - from <= PAIRWISE_BLOCK) {
+            return naive(values, from, to);
+        }
+        int mid = (from + to) >>> 1;
+        return pairwise(values, from, mid) + pairwise(values, mid, to);
+    }
+
+    public static double parallel(double[] values) {
+        if (values.length <= PARALLEL_CHUNK) {
+            return neumaier(values, 0, values.length).value();
+        }
+        return ForkJoinPool.commonPool().invoke(new SumTask(values, 0, values.length)).value();
+    }
+
+    static Partial neumaier(double[] values, int from, int to) {
+        Partial partial = new Partial();
+        for (int i = from; i < to; i++) {
+            partial.add(values[i]);
+        }
+        return partial;
+    }
+
+    /**
+     * Running sum plus the error the additions have dropped so far
+     */
+    static final class Partial {
+        double sum;
+        double compensation;
+
+        void add(double value) {
+            double t = sum + value;
+            if (Math.abs(sum) >= Math.abs(value)) {
+                compensation += (sum - t) + value; // low bits of value were lost
+            } else {
+                compensation += (value - t) + sum; // low bits of sum were lost
+            }
+            sum = t;
+        }
+
+        /**
+         * Folds another chunk in: its sum is added with compensation and its own
+         * compensation is carried over as is
+         */
+        Partial merge(Partial other) {
+            add(other.sum);
+            compensation += other.compensation;
+            return this;
+        }
+
+        double value() {
+            return sum + compensation;
+        }
+    }
+
+    private static final class SumTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+        private final double[] values;
+        private final int from;
+        private final int to;
+
+        SumTask(double[] values, int from, int to) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= PARALLEL_CHUNK) {
+                return neumaier(values, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            SumTask left = new SumTask(values, from, mid);
+            left.fork();
+            Partial right = new SumTask(values, mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package M2;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Runs the Problem4 transformation over every line of a text file
+ *
+ * <p>
+ * Lines are streamed from the input, grouped into fixed-size batches and handed
+ * to a worker pool (see OrderedBatches). Each worker keeps its own
+ * TextNormalizer. Results are written in input order as
+ * {@code phrase<TAB>middle}, one line per input line. At most two batches per
+ * worker are in flight, so memory stays bounded however large the file is.
+ * </p>
+ * <p>
+ * Usage: java M2.TextBatchPipeline &lt;input&gt; &lt;output&gt; [workers] [batchSize]
+ * </p>
+ */
+public class TextBatchPipeline {
+    public static final int DEFAULT_BATCH_SIZE = 4096;
+    private static final int IO_BUFFER = 1 << 16;
+
+    private static final ThreadLocal<TextNormalizer> NORMALIZER = ThreadLocal.withInitial(TextNormalizer::new);
+
+    private final int workers;
+    private final int batchSize;
+
+    public TextBatchPipeline(int workers, int batchSize) {
+        if (workers < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("workers and batchSize must be positive");
+        }
+        this.workers = workers;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Transforms every line of input into output
+     *
+     * @param input  UTF-8 text file
+     * @param output file to create or replace
+     * @return line and byte counts of the run
+     * @throws IOException when reading or writing fails
+     */
+    public Stats run(Path input, Path output) throws IOException {
+        long lines = 0;
+        try (CountingInputStream counted = new CountingInputStream(Files.newInputStream(input));
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(counted, StandardCharsets.UTF_8), IO_BUFFER);
+                Writer writer = new BufferedWriter(
+                        new OutputStreamWriter(Files.newOutputStream(output), StandardCharsets.UTF_8), IO_BUFFER);
+                OrderedBatches<String> batches = new OrderedBatches<>("text-batch-worker", workers, writer::write)) {
+            List<String> batch = new ArrayList<>(batchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                batch.add(line);
+                lines++;
+                if (batch.size() == batchSize) {
+                    batches.submit(transformer(batch));
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batches.submit(transformer(batch));
+            }
+            batches.finish();
+            return new Stats(lines, counted.count, batches.elapsedNanos());
+        }
+    }
+
+    private static Callable<String> transformer(List<String> batch) {
+        return () -> {
+            TextNormalizer normalizer = NORMALIZER.get();
+            StringBuilder out = new StringBuilder(batch.size() * 32);
+            for (String text : batch) {
+                normalizer.normalize(text).appendPhrase(out);
+                out.append('\t');
+                normalizer.appendMiddle(out);
+                out.append('\n');
+            }
+            return out.toString();
+        };
+    }
+
+    /**
+     * Totals of one run
+     */
+    public static class Stats extends OrderedBatches.Stats {
+        public final long lines;
+        public final long bytes;
+
+        Stats(long lines, long bytes, long nanos) {
+            super(nanos);
+            this.lines = lines;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d lines, %,d bytes in %.3f s (%,.0f lines/s, %.1f MB/s)", lines, bytes, seconds(),
+                    perSecond(lines), perSecond(bytes) / 1e6);
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java M2.TextBatchPipeline <input> <output> [workers] [batchSize]");
+            return;
+        }
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_BATCH_SIZE;
+        Stats stats = new TextBatchPipeline(workers, batchSize).run(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.println(stats);
+    }
+}
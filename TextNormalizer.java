@@ -0,0 +1,117 @@
+package M2;
+
+/**
+ * Single pass version of the Problem4 text transformation
+ *
+ * <p>
+ * One scan over the input drops everything except letters, digits and spaces,
+ * title cases each word (first char upper, rest lower), and collapses and trims
+ * spaces, writing into a reused char buffer. The middle characters are then
+ * just index math on the result. Output is identical to the original
+ * replaceAll/split/trim/replaceAll chain. No regex is compiled.
+ * </p>
+ * <p>
+ * Note: Not thread safe, reuse one instance per thread.
+ * </p>
+ */
+public class TextNormalizer {
+    public static final String NOT_ENOUGH = "Not enough characters";
+
+    private char[] buffer;
+    private int length;
+
+    public TextNormalizer() {
+        this(256);
+    }
+
+    public TextNormalizer(int initialCapacity) {
+        buffer = new char[Math.max(16, initialCapacity)];
+    }
+
+    /**
+     * Normalizes the text into this instance's buffer, replacing the previous
+     * result
+     *
+     * @param text input phrase
+     * @return this normalizer, read the result with the other methods
+     */
+    public TextNormalizer normalize(CharSequence text) {
+        final int inputLength = text.length();
+        if (buffer.length < inputLength) {
+            buffer = new char[Math.max(inputLength, buffer.length * 2)];
+        }
+        final char[] out = buffer;
+        int pos = 0;
+        boolean wordStart = true; // next kept letter starts a word
+        boolean pendingSpace = false; // a space is owed before the next word
+        for (int i = 0; i < inputLength; i++) {
+            char c = text.charAt(i);
+            if (c == ' ') {
+                wordStart = true;
+                pendingSpace = pos > 0; // leading spaces are never written
+                continue;
+            }
+            if (c >= 'a' && c <= 'z') {
+                if (wordStart) {
+                    c -= 'a' - 'A';
+                }
+            } else if (c >= 'A' && c <= 'Z') {
+                if (!wordStart) {
+                    c += 'a' - 'A';
+                }
+            } else if (c < '0' || c > '9') {
+                continue; // removed characters don't split words ("a-b" becomes "Ab")
+            }
+            if (pendingSpace) {
+                out[pos++] = ' ';
+                pendingSpace = false;
+            }
+            out[pos++] = c;
+            wordStart = false;
+        }
+        length = pos;
+        return this;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return the normalized phrase (placeholderForModifiedPhrase)
+     */
+    public String phrase() {
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * @return up to 3 middle characters, never the first or last one
+     *         (placeholderForMiddleCharacters), or {@link #NOT_ENOUGH}
+     */
+    public String middle() {
+        if (length <= 2) {
+            return NOT_ENOUGH;
+        }
+        return new String(buffer, middleStart(), middleEnd() - middleStart());
+    }
+
+    public void appendPhrase(StringBuilder builder) {
+        builder.append(buffer, 0, length);
+    }
+
+    public void appendMiddle(StringBuilder builder) {
+        if (length <= 2) {
+            builder.append(NOT_ENOUGH);
+        } else {
+            builder.append(buffer, middleStart(), middleEnd() - middleStart());
+        }
+    }
+
+    private int middleStart() {
+        return Math.max(1, length / 2 - 1);
+    }
+
+    private int middleEnd() {
+        return Math.min(length - 1, middleStart() + 3);
+    }
+}
@@ -0,0 +1,405 @@
+package M2;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Compact binary form of typed value arrays such as Problem3's results
+ *
+ * <p>
+ * A stream starts with the 4 bytes "TVC1" and holds arrays one after another:
+ * the element count as a varint, then for every element its one-byte
+ * {@link ValueType#tag()} (0 for null) and its payload: Integer and Long as
+ * zigzag varints (1 byte for -64..63), Float and Double as their 4 or 8 raw
+ * IEEE bytes, String as a varint byte length and its UTF-8 bytes. Values read
+ * back are the same classes with the same values, so a result can be saved and
+ * reloaded without going through text.
+ * </p>
+ * <p>
+ * {@link #tags(Object[])} classifies an array once; the writer and
+ * BaseClass.printOutputWithType, the text view, both switch on those tags.
+ * </p>
+ * <p>
+ * Note: Only the five ValueType classes and null can be written. Strings are
+ * encoded like ConsoleWriter prints them, so an unpaired surrogate comes back
+ * as '?'.
+ * </p>
+ */
+public final class TypedValueCodec {
+    public static final byte NULL_TAG = 0;
+    static final byte[] MAGIC = { 'T', 'V', 'C', '1' };
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int INITIAL_ELEMENTS = 1024;
+
+    private TypedValueCodec() {
+    }
+
+    /**
+     * Classifies every element once
+     *
+     * @param values values to classify
+     * @return {@link ValueType#tag()} of each element, {@link #NULL_TAG} for null
+     */
+    public static byte[] tags(Object[] values) {
+        byte[] tags = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            tags[i] = values[i] == null ? NULL_TAG : ValueType.of(values[i]).tag();
+        }
+        return tags;
+    }
+
+    /**
+     * Streaming writer, buffered; close (or flush) when done
+     */
+    public static final class Writer implements Closeable, Flushable {
+        private final OutputStream out;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int count;
+
+        public Writer(OutputStream out) throws IOException {
+            this.out = out;
+            write(MAGIC, 0, MAGIC.length);
+        }
+
+        public void writeArray(Object[] values) throws IOException {
+            writeArray(values, tags(values));
+        }
+
+        /**
+         * Checks every tag first, so a rejected array leaves nothing behind in
+         * the stream
+         *
+         * @param values values to write
+         * @param tags   {@link TypedValueCodec#tags(Object[])} of values
+         * @throws IllegalArgumentException for a value of another class or tags
+         *                                  that don't match the values
+         */
+        public void writeArray(Object[] values, byte[] tags) throws IOException {
+            if (tags.length != values.length) {
+                throw new IllegalArgumentException(tags.length + " tags for " + values.length + " values");
+            }
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                ValueType type = ValueType.ofTag(tags[i]);
+                if (value == null ? tags[i] != NULL_TAG : type != ValueType.of(value)) {
+                    throw new IllegalArgumentException("Value " + i + " is tagged " + tags[i] + " but is "
+                            + (value == null ? "null" : "a " + value.getClass().getName()));
+                }
+                if (type == ValueType.OTHER) {
+                    throw new IllegalArgumentException("Can't encode a " + value.getClass().getName());
+                }
+            }
+            writeVarLong(values.length);
+            for (int i = 0; i < values.length; i++) {
+                writeValue(values[i], tags[i]);
+            }
+        }
+
+        private void writeValue(Object value, byte tag) throws IOException {
+            ValueType type = ValueType.ofTag(tag);
+            if (type == null) {
+                ensure(1);
+                buffer[count++] = NULL_TAG;
+                return;
+            }
+            switch (type) {
+                case INTEGER:
+                    writeInt((Integer) value);
+                    break;
+                case LONG:
+                    writeLong((Long) value);
+                    break;
+                case FLOAT:
+                    writeFloat((Float) value);
+                    break;
+                case DOUBLE:
+                    writeDouble((Double) value);
+                    break;
+                case STRING:
+                    writeString((String) value);
+                    break;
+                default:
+                    throw new IllegalStateException("Unchecked tag " + tag);
+            }
+        }
+
+        public void writeInt(int value) throws IOException {
+            writeTag(ValueType.INTEGER);
+            writeVarLong(((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL);
+        }
+
+        public void writeLong(long value) throws IOException {
+            writeTag(ValueType.LONG);
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        public void writeFloat(float value) throws IOException {
+            writeTag(ValueType.FLOAT);
+            writeFixed(Float.floatToRawIntBits(value), 4);
+        }
+
+        public void writeDouble(double value) throws IOException {
+            writeTag(ValueType.DOUBLE);
+            writeFixed(Double.doubleToRawLongBits(value), 8);
+        }
+
+        public void writeString(String value) throws IOException {
+            writeTag(ValueType.STRING);
+            final int length = value.length();
+            int bytes = 0;
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    bytes++;
+                } else if (c < 0x800) {
+                    bytes += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    bytes += 4;
+                    i++;
+                } else if (Character.isSurrogate(c)) {
+                    bytes++;
+                } else {
+                    bytes += 3;
+                }
+            }
+            writeVarLong(bytes);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                ensure(4);
+                if (c < 0x80) {
+                    buffer[count++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[count++] = (byte) (0xC0 | (c >> 6));
+                    buffer[count++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[count++] = (byte) (0xF0 | (cp >> 18));
+                    buffer[count++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buffer[count++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buffer[count++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    buffer[count++] = '?'; // unpaired surrogate, same as ConsoleWriter
+                } else {
+                    buffer[count++] = (byte) (0xE0 | (c >> 12));
+                    buffer[count++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[count++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        private void writeTag(ValueType type) throws IOException {
+            ensure(1);
+            buffer[count++] = type.tag();
+        }
+
+        // 7 bits per byte, low bits first, high bit set on all but the last
+        private void writeVarLong(long value) throws IOException {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[count++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[count++] = (byte) value;
+        }
+
+        // big-endian
+        private void writeFixed(long bits, int bytes) throws IOException {
+            ensure(bytes);
+            for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+                buffer[count++] = (byte) (bits >>> shift);
+            }
+        }
+
+        private void write(byte[] bytes, int offset, int length) throws IOException {
+            ensure(length);
+            System.arraycopy(bytes, offset, buffer, count, length);
+            count += length;
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (count + bytes > buffer.length) {
+                out.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.write(buffer, 0, count);
+            count = 0;
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+            out.close();
+        }
+    }
+
+    /**
+     * Streaming reader of what {@link Writer} writes
+     *
+     * <p>
+     * Arrays and long strings grow as their data arrives instead of being
+     * allocated from the length in the stream, so a corrupt or truncated
+     * length ends in an IOException, not an OutOfMemoryError.
+     * </p>
+     */
+    public static final class Reader implements Closeable {
+        private final InputStream in;
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int position;
+        private int limit;
+
+        public Reader(InputStream in) throws IOException {
+            this.in = in;
+            for (byte expected : MAGIC) {
+                if (!fill(1) || buffer[position++] != expected) {
+                    throw new IOException("Not a typed value stream");
+                }
+            }
+        }
+
+        /**
+         * @return the next array, or null at the end of the stream
+         * @throws IOException when the stream is truncated or corrupt
+         */
+        public Object[] readArray() throws IOException {
+            if (!fill(1)) {
+                return null;
+            }
+            long length = readVarLong();
+            if (length < 0 || length > Integer.MAX_VALUE - 8) {
+                throw new IOException("Bad array length " + length);
+            }
+            Object[] values = new Object[(int) Math.min(length, INITIAL_ELEMENTS)];
+            for (int i = 0; i < length; i++) {
+                if (i == values.length) {
+                    values = Arrays.copyOf(values, (int) Math.min(length, 2L * i));
+                }
+                values[i] = readValue();
+            }
+            return values;
+        }
+
+        /**
+         * @return the next value: an Integer, Long, Float, Double, String or
+         *         null
+         */
+        public Object readValue() throws IOException {
+            require(1);
+            int tag = buffer[position++];
+            if (tag == NULL_TAG) {
+                return null;
+            }
+            ValueType type = ValueType.ofTag(tag);
+            if (type == null) {
+                throw new IOException("Unknown type tag " + tag);
+            }
+            switch (type) {
+                case INTEGER:
+                    long zigzag = readVarLong();
+                    return (int) ((zigzag >>> 1) ^ -(zigzag & 1));
+                case LONG:
+                    long encoded = readVarLong();
+                    return (encoded >>> 1) ^ -(encoded & 1);
+                case FLOAT:
+                    return Float.intBitsToFloat((int) readFixed(4));
+                case DOUBLE:
+                    return Double.longBitsToDouble(readFixed(8));
+                case STRING:
+                    long length = readVarLong();
+                    if (length < 0 || length > Integer.MAX_VALUE) {
+                        throw new IOException("Bad string length " + length);
+                    }
+                    return readString((int) length);
+                default:
+                    throw new IOException("Unknown type tag " + tag);
+            }
+        }
+
+        private String readString(int length) throws IOException {
+            if (length <= buffer.length) {
+                require(length);
+                String text = new String(buffer, position, length, StandardCharsets.UTF_8);
+                position += length;
+                return text;
+            }
+            byte[] bytes = new byte[Math.min(length, 4 * BUFFER_SIZE)];
+            int copied = limit - position;
+            System.arraycopy(buffer, position, bytes, 0, copied);
+            position = limit;
+            while (copied < length) {
+                if (copied == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * copied));
+                }
+                int read = in.read(bytes, copied, bytes.length - copied);
+                if (read < 0) {
+                    throw new EOFException("Truncated string");
+                }
+                copied += read;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                require(1);
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Varint longer than 10 bytes");
+        }
+
+        private long readFixed(int bytes) throws IOException {
+            require(bytes);
+            long bits = 0;
+            for (int i = 0; i < bytes; i++) {
+                bits = (bits << 8) | (buffer[position++] & 0xFF);
+            }
+            return bits;
+        }
+
+        private void require(int bytes) throws IOException {
+            if (!fill(bytes)) {
+                throw new EOFException("Truncated typed value stream");
+            }
+        }
+
+        // at least bytes unread in the buffer, false at the end of the stream
+        private boolean fill(int bytes) throws IOException {
+            if (limit - position >= bytes) {
+                return true;
+            }
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+            while (limit < bytes) {
+                int read = in.read(buffer, limit, buffer.length - limit);
+                if (read < 0) {
+                    return false;
+                }
+                limit += read;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
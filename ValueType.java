@@ -0,0 +1,82 @@
+package M2;
+
+/**
+ * Value types the M2 helpers specialize on
+ *
+ * <p>
+ * {@link #of(Object)} classifies a value once so callers can store the result
+ * and switch on it instead of repeating an instanceof chain. Each type also
+ * has a fixed one-byte {@link #tag()}, which TypedValueCodec writes before the
+ * value, and the {@link #letter()} printOutputWithType shows after it.
+ * </p>
+ */
+public enum ValueType {
+    INTEGER(1, 'I'),
+    LONG(2, 'L'),
+    FLOAT(3, 'F'),
+    DOUBLE(4, 'D'),
+    STRING(5, 'S'),
+    OTHER(6, '?');
+
+    private static final ValueType[] BY_TAG = new ValueType[7];
+
+    static {
+        for (ValueType type : values()) {
+            BY_TAG[type.tag] = type;
+        }
+    }
+
+    private final byte tag;
+    private final char letter;
+
+    ValueType(int tag, char letter) {
+        this.tag = (byte) tag;
+        this.letter = letter;
+    }
+
+    /**
+     * @return stable tag byte, never 0 (TypedValueCodec uses 0 for null)
+     */
+    public byte tag() {
+        return tag;
+    }
+
+    /**
+     * @return first letter of the class name, '?' for OTHER whose class varies
+     */
+    public char letter() {
+        return letter;
+    }
+
+    /**
+     * @param tag a {@link #tag()} value
+     * @return its type, or null for an unknown tag
+     */
+    public static ValueType ofTag(int tag) {
+        return tag > 0 && tag < BY_TAG.length ? BY_TAG[tag] : null;
+    }
+
+    /**
+     * @param value value to classify, may be null
+     * @return type of the value, OTHER for null and unsupported classes
+     */
+    public static ValueType of(Object value) {
+        if (value == null) {
+            return OTHER;
+        }
+        // all five classes are final, so each check is a single class pointer compare
+        final Class<?> type = value.getClass();
+        if (type == Integer.class) {
+            return INTEGER;
+        } else if (type == Double.class) {
+            return DOUBLE;
+        } else if (type == Float.class) {
+            return FLOAT;
+        } else if (type == String.class) {
+            return STRING;
+        } else if (type == Long.class) {
+            return LONG;
+        }
+        return OTHER;
+    }
+}
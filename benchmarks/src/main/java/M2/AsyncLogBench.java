@@ -0,0 +1,64 @@
+package M2;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time the calling threads spend in the BaseClass helpers, per AsyncLogSink
+ * mode: four threads log a header, a 16 value int array and a footer into one
+ * sink writing to a PrintStream over a null stream, so only the formatting,
+ * locking and queueing is measured. Results are per event; in DROP and SAMPLE
+ * mode part of them are dropped when the writer falls behind.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AsyncLogBench {
+    @Param({ "SYNC", "BLOCK", "DROP", "SAMPLE" })
+    AsyncLogSink.Mode mode;
+
+    private final int[] values = new int[16];
+    private AsyncLogSink sink;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 37 - 200;
+        }
+        sink = new AsyncLogSink(mode, new ConsoleWriter(new PrintStream(OutputStream.nullOutputStream(), false)),
+                AsyncLogSink.DEFAULT_CAPACITY, AsyncLogSink.DEFAULT_SAMPLE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        sink.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(3)
+    public void log() {
+        sink.header("nhd5", 1);
+        sink.arrayInfo(values, 1);
+        sink.footer("nhd5", 1);
+    }
+}
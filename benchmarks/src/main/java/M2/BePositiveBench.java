@@ -0,0 +1,103 @@
+package M2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Problem3.bePositive: the original instanceof chain, AbsKernels.positive on
+ * the boxed array and the primitive kernel on the same values unboxed
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BePositiveBench {
+    @Param({ "10", "1000", "100000", "10000000" })
+    int size;
+
+    @Param({ "integers", "doubles", "mixed" })
+    String shape;
+
+    private Object[] boxed;
+    private double[] primitive;
+    private double[] primitiveOut;
+
+    @Setup
+    public void setUp() {
+        boxed = BenchData.objects(shape, size);
+        primitive = new double[size];
+        for (int i = 0; i < size; i++) {
+            Object value = boxed[i];
+            primitive[i] = value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble((String) value);
+        }
+        primitiveOut = new double[size];
+    }
+
+    @Benchmark
+    public Object[] legacyChain() {
+        return legacy(boxed, shape.equals("integers") ? 1 : shape.equals("doubles") ? 2 : 5);
+    }
+
+    @Benchmark
+    public Object[] typedPositive() {
+        return AbsKernels.positive(boxed);
+    }
+
+    @Benchmark
+    public double[] primitiveKernel() {
+        AbsKernels.abs(primitive, primitiveOut);
+        return primitiveOut;
+    }
+
+    // the original bePositive loop, output type picked from the array number
+    static Object[] legacy(Object[] arr, int arrayNumber) {
+        Object[] output;
+        switch (arrayNumber) {
+            case 1:
+                output = new Integer[arr.length];
+                break;
+            case 2:
+                output = new Double[arr.length];
+                break;
+            case 3:
+                output = new Float[arr.length];
+                break;
+            case 4:
+                output = new String[arr.length];
+                break;
+            default:
+                output = new Object[arr.length];
+                break;
+        }
+        for (int i = 0; i < arr.length; i++) {
+            Object x = arr[i];
+            if (x instanceof Integer) {
+                output[i] = Integer.valueOf(Math.abs((Integer) x));
+            } else if (x instanceof Double) {
+                output[i] = Double.valueOf(Math.abs((Double) x));
+            } else if (x instanceof Float) {
+                output[i] = Float.valueOf(Math.abs((Float) x));
+            } else if (x instanceof String) {
+                String s = (String) x;
+                output[i] = s.startsWith("-") ? s.substring(1) : s;
+            } else {
+                String s = String.valueOf(x);
+                output[i] = s.startsWith("-") ? s.substring(1) : s;
+            }
+        }
+        return output;
+    }
+}
@@ -0,0 +1,142 @@
+package M2;
+
+import java.util.SplittableRandom;
+
+/**
+ * Input generators shared by the JMH benchmarks, all seeded so every run sees
+ * the same data
+ */
+final class BenchData {
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final String SYMBOLS = "!@#$%^&*-_.,";
+    static final int PHRASE_LENGTH = 80;
+
+    private BenchData() {
+    }
+
+    /**
+     * @param shape random (mixed parity), sorted (array1/array3 style runs,
+     *              negatives included) or allOdd
+     */
+    static int[] ints(String shape, int size) {
+        SplittableRandom random = new SplittableRandom(1);
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++) {
+            switch (shape) {
+                case "random":
+                    values[i] = random.nextInt();
+                    break;
+                case "sorted":
+                    values[i] = i / 2 - size / 4;
+                    break;
+                case "allOdd":
+                    values[i] = random.nextInt() | 1;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown shape " + shape);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @param shape uniform (array1-array3 style), mixedMagnitude (array5 style,
+     *              wide exponents) or cancelling (array4 style, huge terms that
+     *              cancel around small ones)
+     */
+    static double[] doubles(String shape, int size) {
+        SplittableRandom random = new SplittableRandom(2);
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            switch (shape) {
+                case "uniform":
+                    values[i] = random.nextDouble();
+                    break;
+                case "mixedMagnitude":
+                    values[i] = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(-8, 9));
+                    break;
+                case "cancelling":
+                    values[i] = (i % 3 == 2) ? random.nextDouble() : (i % 3 == 0 ? 1e16 : -1e16);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown shape " + shape);
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @param shape integers (array1), doubles (array2) or mixed (array5: Integer,
+     *              Float, Double and String values)
+     */
+    static Object[] objects(String shape, int size) {
+        SplittableRandom random = new SplittableRandom(3);
+        Object[] values;
+        switch (shape) {
+            case "integers":
+                values = new Integer[size];
+                break;
+            case "doubles":
+                values = new Double[size];
+                break;
+            case "mixed":
+                values = new Object[size];
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+        for (int i = 0; i < size; i++) {
+            int kind = shape.equals("integers") ? 0 : shape.equals("doubles") ? 2 : i % 4;
+            switch (kind) {
+                case 0:
+                    values[i] = random.nextInt(-1_000_000, 1_000_000);
+                    break;
+                case 1:
+                    values[i] = (float) (random.nextDouble() - 0.5);
+                    break;
+                case 2:
+                    values[i] = random.nextDouble() - 0.5;
+                    break;
+                default:
+                    values[i] = Integer.toString(random.nextInt(-1_000_000, 1_000_000));
+                    break;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Splits {@code size} characters of text into phrases of up to
+     * {@link #PHRASE_LENGTH}
+     *
+     * @param shape clean (letters and single spaces, array2), noisy (symbols
+     *              mixed in, array1) or spaced (runs of spaces, array3)
+     */
+    static String[] phrases(String shape, int size) {
+        SplittableRandom random = new SplittableRandom(4);
+        int count = (size + PHRASE_LENGTH - 1) / PHRASE_LENGTH;
+        String[] phrases = new String[count];
+        StringBuilder builder = new StringBuilder(PHRASE_LENGTH);
+        int remaining = size;
+        for (int p = 0; p < count; p++) {
+            int length = Math.min(PHRASE_LENGTH, remaining);
+            remaining -= length;
+            builder.setLength(0);
+            while (builder.length() < length) {
+                int roll = random.nextInt(8);
+                if (roll == 0) {
+                    int spaces = shape.equals("spaced") ? 1 + random.nextInt(4) : 1;
+                    for (int i = 0; i < spaces && builder.length() < length; i++) {
+                        builder.append(' ');
+                    }
+                } else if (roll == 1 && shape.equals("noisy")) {
+                    builder.append(SYMBOLS.charAt(random.nextInt(SYMBOLS.length())));
+                } else {
+                    builder.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+                }
+            }
+            phrases[p] = builder.toString();
+        }
+        return phrases;
+    }
+}
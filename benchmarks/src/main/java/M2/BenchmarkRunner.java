@@ -0,0 +1,38 @@
+package M2;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar
+ *
+ * <p>
+ * Takes the usual JMH command line (benchmark regex, -p size=1000, -f, ...)
+ * and, unless -rf/-rff are given, writes the results as JSON to
+ * results/jmh-&lt;timestamp&gt;.json so runs can be compared later.
+ * </p>
+ */
+public class BenchmarkRunner {
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+        if (!cli.getResult().hasValue() && !cli.getResultFormat().hasValue()) {
+            File results = new File("results");
+            results.mkdirs();
+            options.resultFormat(ResultFormatType.JSON)
+                    .result(new File(results, "jmh-" + LocalDateTime.now().format(STAMP) + ".json").getPath());
+        }
+        new Runner(options.build()).run();
+    }
+}
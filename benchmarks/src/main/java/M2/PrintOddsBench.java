@@ -0,0 +1,92 @@
+package M2;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Problem1.printOdds: filtering (into an int[]) measured apart from rendering
+ * (comma separated text into a discarding ConsoleWriter), and OddStreamFilter
+ * parsing the same values from newline separated text
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class PrintOddsBench {
+    @Param({ "10", "1000", "100000", "10000000" })
+    int size;
+
+    @Param({ "random", "sorted", "allOdd" })
+    String shape;
+
+    private int[] values;
+    private int[] odds;
+    private OddFilter scalar;
+    private OddFilter vector;
+    private ConsoleWriter sink;
+    private byte[] text;
+
+    @Setup
+    public void setUp() {
+        values = BenchData.ints(shape, size);
+        odds = new int[size];
+        scalar = new ScalarOddFilter();
+        vector = OddFilter.vector();
+        sink = new ConsoleWriter(OutputStream.nullOutputStream());
+        StringBuilder builder = new StringBuilder(size * 12);
+        for (int value : values) {
+            builder.append(value).append('\n');
+        }
+        text = builder.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // the printOdds test (value % 2 != 0, one branch per element) without the printing
+    @Benchmark
+    public int filterBranchy() {
+        int n = 0;
+        for (int value : values) {
+            if (value % 2 != 0) {
+                odds[n++] = value;
+            }
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int filterScalar() {
+        return scalar.compact(values, size, odds);
+    }
+
+    @Benchmark
+    public int filterVector() {
+        return vector.compact(values, size, odds);
+    }
+
+    @Benchmark
+    public void renderWriteOdds() {
+        Problem1.writeOdds(values, sink);
+        sink.flush();
+    }
+
+    @Benchmark
+    public long streamFilter() throws IOException {
+        return new OddStreamFilter(sink).filter(new ByteArrayInputStream(text));
+    }
+}
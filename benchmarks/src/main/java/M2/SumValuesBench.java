@@ -0,0 +1,73 @@
+package M2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Problem2.sumValues: every Summation strategy, plus the 2-decimal formatting
+ * of the total measured on its own
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SumValuesBench {
+    @Param({ "10", "1000", "100000", "10000000" })
+    int size;
+
+    @Param({ "uniform", "mixedMagnitude", "cancelling" })
+    String shape;
+
+    private double[] values;
+    private double total;
+    private final char[] buffer = new char[FixedDecimalFormatter.MAX_LENGTH];
+
+    @Setup
+    public void setUp() {
+        values = BenchData.doubles(shape, size);
+        total = Summation.sum(values, Summation.Strategy.NEUMAIER);
+    }
+
+    @Benchmark
+    public double sumNaive() {
+        return Summation.sum(values, Summation.Strategy.NAIVE);
+    }
+
+    @Benchmark
+    public double sumNeumaier() {
+        return Summation.sum(values, Summation.Strategy.NEUMAIER);
+    }
+
+    @Benchmark
+    public double sumPairwise() {
+        return Summation.sum(values, Summation.Strategy.PAIRWISE);
+    }
+
+    @Benchmark
+    public double sumParallel() {
+        return Summation.sum(values, Summation.Strategy.PARALLEL);
+    }
+
+    @Benchmark
+    public String formatStringFormat() {
+        return String.format("%.2f", total);
+    }
+
+    @Benchmark
+    public int formatFixed() {
+        return FixedDecimalFormatter.format(total, buffer, 0);
+    }
+}
@@ -0,0 +1,91 @@
+package M2;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Problem4.transformText: the original regex/split chain against
+ * TextNormalizer, size is the total number of input characters
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformTextBench {
+    @Param({ "10", "1000", "100000", "10000000" })
+    int size;
+
+    @Param({ "clean", "noisy", "spaced" })
+    String shape;
+
+    private String[] phrases;
+    private TextNormalizer normalizer;
+    private StringBuilder out;
+
+    @Setup
+    public void setUp() {
+        phrases = BenchData.phrases(shape, size);
+        normalizer = new TextNormalizer();
+        out = new StringBuilder(BenchData.PHRASE_LENGTH * 2);
+    }
+
+    @Benchmark
+    public void legacyChain(Blackhole blackhole) {
+        for (String phrase : phrases) {
+            blackhole.consume(legacy(phrase));
+        }
+    }
+
+    @Benchmark
+    public void normalizer(Blackhole blackhole) {
+        for (String phrase : phrases) {
+            out.setLength(0);
+            normalizer.normalize(phrase).appendPhrase(out);
+            normalizer.appendMiddle(out);
+            blackhole.consume(out.length());
+        }
+    }
+
+    // the original transformText body: returns { phrase, middle }
+    static String[] legacy(String text) {
+        String s = text.replaceAll("[^A-Za-z0-9 ]", "");
+        String[] parts = s.split(" ");
+        String result = "";
+        for (int w = 0; w < parts.length; w++) {
+            String word = parts[w];
+            if (word.length() > 0) {
+                String first = word.substring(0, 1).toUpperCase();
+                String rest = (word.length() > 1) ? word.substring(1).toLowerCase() : "";
+                if (!result.isEmpty()) {
+                    result += " ";
+                }
+                result += first + rest;
+            }
+        }
+        s = result.trim().replaceAll(" +", " ");
+        String middle = "Not enough characters";
+        int len = s.length();
+        if (len > 2) {
+            int start = Math.max(1, len / 2 - 1);
+            int end = Math.min(len - 1, start + 3);
+            if (start < end) {
+                middle = s.substring(start, end);
+            }
+        }
+        return new String[] { s, middle };
+    }
+}
@@ -0,0 +1,94 @@
+package M3;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Dispatching a scripted command log: the original trim/split/lowercase
+ * if-else chain against CommandRegistry. Results are per command.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandDispatchBench {
+    static final int SCRIPT_LENGTH = 1_000_000;
+    private static final String[] TEMPLATES = { "/greet Bob", "/ECHO some longer message text", "/roll 3d6",
+            "  /Greet   Alice  ", "/unknown thing", "/echo", "/roll 2x6" };
+
+    private String[] script;
+    private final StringBuilder out = new StringBuilder(256);
+    private CommandRegistry registry;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(6);
+        script = new String[SCRIPT_LENGTH];
+        for (int i = 0; i < SCRIPT_LENGTH; i++) {
+            script[i] = TEMPLATES[random.nextInt(TEMPLATES.length)];
+        }
+        registry = SlashCommands.defaults();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCRIPT_LENGTH)
+    public int legacyChain() {
+        int length = 0;
+        for (String line : script) {
+            out.setLength(0);
+            legacy(line, out);
+            length += out.length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SCRIPT_LENGTH)
+    public int registry() {
+        int length = 0;
+        for (String line : script) {
+            out.setLength(0);
+            registry.dispatch(line, out);
+            length += out.length();
+        }
+        return length;
+    }
+
+    // the original SlashCommandHandler loop body, writing to out instead of System.out
+    private static boolean legacy(String line, StringBuilder out) {
+        String input = line.trim();
+        if (input.length() == 0) {
+            out.append(CommandRegistry.EMPTY_COMMAND).append('\n');
+            return true;
+        }
+        String[] parts = input.split("\\s+", 2);
+        String cmd = parts[0].toLowerCase();
+        String rest = (parts.length > 1) ? parts[1].trim() : "";
+        if (cmd.equals("/quit")) {
+            return false;
+        } else if (cmd.equals("/greet")) {
+            SlashCommands.greet(rest, out);
+        } else if (cmd.equals("/echo")) {
+            SlashCommands.echo(rest, out);
+        } else if (cmd.equals("/roll")) {
+            SlashCommands.roll(rest, out);
+        } else {
+            out.append(CommandRegistry.UNHANDLED).append('\n');
+        }
+        return true;
+    }
+}
@@ -0,0 +1,56 @@
+package M3;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One /roll of num d6: the original Math.random loop against DiceEngine.roll
+ * (exact up to EXACT_LIMIT dice, sampled above) and DiceEngine.rollExact
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiceBench {
+    @Param({ "10", "1000", "1000000", "100000000" })
+    int num;
+
+    @Benchmark
+    public int legacy() {
+        return legacy(num, 6);
+    }
+
+    @Benchmark
+    public long roll() {
+        return DiceEngine.roll(num, 6);
+    }
+
+    @Benchmark
+    public long rollExact() {
+        return DiceEngine.rollExact(num, 6);
+    }
+
+    // the original /roll loop, including its int total
+    static int legacy(int num, int sides) {
+        int total = 0;
+        int i = 0;
+        while (i < num) {
+            int one = (int) (Math.random() * sides) + 1;
+            total = total + one;
+            i = i + 1;
+        }
+        return total;
+    }
+}
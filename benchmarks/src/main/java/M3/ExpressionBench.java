@@ -0,0 +1,70 @@
+package M3;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CalculatorExpression over rows of four variables: compiling the text for
+ * every row, as a line by line evaluator does, against compiling once and only
+ * evaluating. Both produce the formatted answer; results are per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionBench {
+    static final int ROWS = 10_000;
+    static final String EXPRESSION = "(a + b) * c - d / 4 % 3 + 2 * (1.5 - 0.25) * (10 - 2 * 3)";
+
+    private String[][] rows;
+    private CalculatorExpression compiled;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(21);
+        rows = new String[ROWS][4];
+        for (String[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                long whole = random.nextLong(-1_000_000, 1_000_000);
+                int decimals = random.nextInt(4);
+                row[i] = decimals == 0 ? Long.toString(whole)
+                        : whole + "." + String.format("%0" + decimals + "d", random.nextInt((int) Math.pow(10, decimals)));
+            }
+        }
+        compiled = CalculatorExpression.compile(EXPRESSION);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long parseAndEvaluate() {
+        long length = 0;
+        for (String[] row : rows) {
+            length += CalculatorExpression.compile(EXPRESSION).evaluate(row).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long evaluate() {
+        long length = 0;
+        for (String[] row : rows) {
+            length += compiled.evaluate(row).length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,114 @@
+package M3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Filling in one story of 100 lines: the original MadLibsGenerator replace
+ * loop, which rebuilds the line for every placeholder, against compiling and
+ * rendering a MadLibsTemplate, and rendering an already compiled one. Lines
+ * mix plain words, stray '&lt;' and '&gt;' characters and empty "&lt;&gt;"
+ * placeholders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MadLibsBench {
+    static final int LINES = 100;
+
+    @Param({ "10", "200", "2000" })
+    int placeholdersPerLine;
+
+    private List<String> story;
+    private String[] words;
+    private MadLibsTemplate template;
+
+    @Setup
+    public void setUp() {
+        story = generate(LINES, placeholdersPerLine);
+        template = MadLibsTemplate.compile(story);
+        words = new String[template.placeholderCount()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = "word" + i;
+        }
+    }
+
+    @Benchmark
+    public String legacy() {
+        return legacy(story, words);
+    }
+
+    @Benchmark
+    public String compileAndRender() {
+        return MadLibsTemplate.compile(story).render(words);
+    }
+
+    @Benchmark
+    public String render() {
+        return template.render(words);
+    }
+
+    // the original step 3 and 4 of MadLibsGenerator, taking words in prompt order
+    static String legacy(List<String> story, String[] words) {
+        List<String> lines = new ArrayList<>(story);
+        int next = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            while (true) {
+                int start = line.indexOf('<');
+                if (start == -1) break;
+                int end = line.indexOf('>', start + 1);
+                if (end == -1) break;
+                String word = words[next++];
+                String before = line.substring(0, start);
+                String after = line.substring(end + 1);
+                line = before + word + after;
+            }
+            lines.set(i, line);
+        }
+        StringBuilder finalStory = new StringBuilder();
+        for (String line : lines) {
+            finalStory.append(line).append("\n");
+        }
+        return finalStory.toString();
+    }
+
+    private static List<String> generate(int lineCount, int perLine) {
+        SplittableRandom random = new SplittableRandom(15);
+        String[] names = { "adjective", "animal", "verb_ending_in_ing", "place", "", "object" };
+        List<String> lines = new ArrayList<>(lineCount);
+        StringBuilder line = new StringBuilder();
+        for (int l = 0; l < lineCount; l++) {
+            line.setLength(0);
+            for (int p = 0; p < perLine; p++) {
+                line.append("the ");
+                if (random.nextInt(20) == 0) {
+                    line.append(random.nextBoolean() ? "> " : "a < b ");
+                }
+                line.append('<').append(names[random.nextInt(names.length)]).append("> ");
+            }
+            if (random.nextBoolean()) {
+                line.append("trailing < without end");
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+}
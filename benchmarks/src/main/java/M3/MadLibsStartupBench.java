@@ -0,0 +1,108 @@
+package M3;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Startup cost of the built-in Mad Libs stories, before and after moving them
+ * into MadLibsGenerator.BuiltInStories: the old step 1 of main (five
+ * ArrayLists built on every run, whichever story is used) against the first
+ * use of the holder class, which is only paid when no folder story is found
+ *
+ * <p>
+ * The cold benchmarks run once in each of 20 fresh JVMs, the warm ones are
+ * averaged as usual. Add {@code -prof gc} for the bytes allocated per run.
+ * With a folder story the holder is never initialized and costs nothing.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MadLibsStartupBench {
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(20)
+    public List<List<String>> legacyListsCold() {
+        return legacy();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(20)
+    public List<MadLibsTemplate> holderFirstUseCold() {
+        return MadLibsGenerator.BuiltInStories.TEMPLATES;
+    }
+
+    @Benchmark
+    public List<List<String>> legacyListsWarm() {
+        return legacy();
+    }
+
+    @Benchmark
+    public List<MadLibsTemplate> holderCompileWarm() {
+        return MadLibsGenerator.BuiltInStories.compile();
+    }
+
+    // the old step 1 of MadLibsGenerator.main, with its own copy of the stories so the holder stays untouched
+    static List<List<String>> legacy() {
+        List<List<String>> builtInStories = new ArrayList<>();
+
+        // Story 1
+        List<String> s1 = new ArrayList<>();
+        s1.add("Today, I went to the zoo and saw a <adjective> <animal>.");
+        s1.add("It was <verb_ending_in_ing> near the <place>.");
+        s1.add("The zookeeper said it loved eating <food> and sleeping under a <object>.");
+        s1.add("Before I left, I bought a <adjective> <souvenir> from the gift shop!");
+        builtInStories.add(s1);
+
+        // Story 2
+        List<String> s2 = new ArrayList<>();
+        s2.add("While hiking in the <adjective> mountains, I discovered a <adjective> cave.");
+        s2.add("Inside, I found a <adjective> <creature> guarding a <object>.");
+        s2.add("It looked at me and <verb_past_tense> loudly.");
+        s2.add("I quickly grabbed my <object> and <verb_past_tense> out of there!");
+        s2.add("That was the most <adjective> adventure of my life.");
+        builtInStories.add(s2);
+
+        // Story 3
+        List<String> s3 = new ArrayList<>();
+        s3.add("My best friend invented a <adjective> machine that can <verb>.");
+        s3.add("All you need is a <object>, and it will turn it into a <adjective> <object>.");
+        s3.add("Yesterday, I put a <food> in it, and out came a <adjective> <animal>!");
+        s3.add("Now, everyone calls me the <adjective> scientist!");
+        builtInStories.add(s3);
+
+        // Story 4
+        List<String> s4 = new ArrayList<>();
+        s4.add("I was traveling through space in my <adjective> spaceship when I landed on <planet>.");
+        s4.add("The aliens there were <adjective> and <verb_ending_in_ing> around a <object>.");
+        s4.add("One of them handed me a <adjective> <object> and said, \"<gibberish_phrase>!\"");
+        s4.add("I had no idea what it meant, but I took it and <verb_past_tense> back to my spaceship.");
+        builtInStories.add(s4);
+
+        // Story 5
+        List<String> s5 = new ArrayList<>();
+        s5.add("A <adjective> witch gave me a potion that would make me <adjective>.");
+        s5.add("She told me to drink it while standing on a <object> under the <adjective> moon.");
+        s5.add("As soon as I drank it, I started <verb_ending_in_ing> uncontrollably.");
+        s5.add("From that day forward, I became the most <adjective> person in town.");
+        builtInStories.add(s5);
+        return builtInStories;
+    }
+}
@@ -0,0 +1,147 @@
+package M3;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CommandLineCalculator.calculate on typical inputs (up to 9 digits and 4
+ * decimals, + or -) against the original BigDecimal and DecimalFormat code.
+ * Results are per pair.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScaledDecimalBench {
+    static final int PAIRS = 10_000;
+
+    private String[][] pairs;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(22);
+        pairs = new String[PAIRS][];
+        for (int i = 0; i < PAIRS; i++) {
+            pairs[i] = new String[] { randomNumber(random, 9, 4, false), random.nextBoolean() ? "+" : "-",
+                    randomNumber(random, 9, 4, false) };
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public long legacy() {
+        long length = 0;
+        for (String[] pair : pairs) {
+            length += legacy(pair[0], pair[1], pair[2]).length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIRS)
+    public long scaled() {
+        long length = 0;
+        for (String[] pair : pairs) {
+            length += CommandLineCalculator.calculate(pair[0], pair[1], pair[2]).length();
+        }
+        return length;
+    }
+
+    // the original CommandLineCalculator math, answer or error message
+    static String legacy(String leftText, String opText, String rightText) {
+        try {
+            BigDecimal left = new BigDecimal(leftText);
+            BigDecimal right = new BigDecimal(rightText);
+            int maxDecimals = Math.max(legacyDecimals(leftText), legacyDecimals(rightText));
+            BigDecimal answer = opText.equals("+") ? left.add(right) : left.subtract(right);
+            String pattern;
+            if (maxDecimals == 0) {
+                pattern = "0";
+            } else {
+                String dots = "0.";
+                int i = 0;
+                while (i < maxDecimals) {
+                    dots = dots + "0";
+                    i = i + 1;
+                }
+                pattern = dots;
+            }
+            return new DecimalFormat(pattern).format(answer);
+        } catch (Exception e) {
+            return CommandLineCalculator.INVALID_INPUT;
+        }
+    }
+
+    private static int legacyDecimals(String text) {
+        int dot = text.indexOf('.');
+        if (dot == -1) {
+            return 0;
+        }
+        int end = text.length();
+        int e1 = text.indexOf('e');
+        int e2 = text.indexOf('E');
+        int ePos = -1;
+        if (e1 != -1 && e2 != -1) {
+            ePos = (e1 < e2) ? e1 : e2;
+        } else if (e1 != -1) {
+            ePos = e1;
+        } else if (e2 != -1) {
+            ePos = e2;
+        }
+        if (ePos != -1) {
+            end = ePos;
+        }
+        return Math.max(0, end - dot - 1);
+    }
+
+    private static String randomNumber(SplittableRandom random, int maxDigits, int maxDecimals, boolean exotic) {
+        StringBuilder text = new StringBuilder(32);
+        int sign = random.nextInt(exotic ? 6 : 2);
+        if (sign == 0) {
+            text.append('-');
+        } else if (sign == 1 && exotic) {
+            text.append('+');
+        }
+        int whole = random.nextInt(1, maxDigits + 1);
+        int decimals = random.nextInt(maxDecimals + 1);
+        if (exotic && random.nextInt(8) == 0) {
+            whole = 1; // mostly zeros: values that round to zero
+            text.append('0');
+        } else {
+            for (int i = 0; i < whole; i++) {
+                text.append((char) ('0' + random.nextInt(10)));
+            }
+        }
+        if (decimals > 0 || exotic && random.nextInt(10) == 0) {
+            text.append('.');
+            for (int i = 0; i < decimals; i++) {
+                text.append((char) ('0' + random.nextInt(exotic && random.nextBoolean() ? 1 : 10)));
+            }
+        }
+        if (exotic && random.nextInt(5) == 0) {
+            text.append(random.nextBoolean() ? 'e' : 'E');
+            int exponent = random.nextInt(-25, 26);
+            if (exponent >= 0 && random.nextBoolean()) {
+                text.append('+');
+            }
+            text.append(exponent);
+        }
+        return text.toString();
+    }
+}
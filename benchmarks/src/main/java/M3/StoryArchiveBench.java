@@ -0,0 +1,83 @@
+package M3;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Opening a StoryArchive and loading one random story, which should cost the
+ * same for a thousand stories or a million, and loading from an archive that
+ * is already open
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoryArchiveBench {
+    private static final String[] NAMES = { "adjective", "animal", "verb_ending_in_ing", "place", "object", "food" };
+
+    @Param({ "1000", "100000", "1000000" })
+    int stories;
+
+    private Path file;
+    private StoryArchive open;
+    private final SplittableRandom random = new SplittableRandom(17);
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("stories", ".pack");
+        try (StoryArchive.Builder builder = new StoryArchive.Builder(file)) {
+            for (int i = 0; i < stories; i++) {
+                builder.add("story" + i + ".txt", story(i));
+            }
+            builder.commit();
+        }
+        open = StoryArchive.open(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        open.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int openAndLoad() throws IOException {
+        try (StoryArchive archive = StoryArchive.open(file)) {
+            return archive.load(random.nextInt(archive.size())).placeholderCount();
+        }
+    }
+
+    @Benchmark
+    public int load() throws IOException {
+        return open.load(random.nextInt(stories)).placeholderCount();
+    }
+
+    private static String story(int i) {
+        SplittableRandom random = new SplittableRandom(i);
+        StringBuilder story = new StringBuilder(256);
+        int lines = 2 + random.nextInt(4);
+        for (int l = 0; l < lines; l++) {
+            story.append("Story ").append(i).append(" saw a <").append(NAMES[random.nextInt(NAMES.length)])
+                    .append("> near the <").append(NAMES[random.nextInt(NAMES.length)]).append(">.\n");
+        }
+        return story.toString();
+    }
+}
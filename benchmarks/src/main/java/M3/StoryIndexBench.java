@@ -0,0 +1,118 @@
+package M3;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Picking one story from a folder of generated stories: the original pick
+ * (listFiles, filter the .txt files, read the chosen one with Scanner,
+ * compile) against opening an up-to-date StoryIndex and loading the story,
+ * plus rebuilding the index from scratch
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoryIndexBench {
+    @Param({ "100", "50000" })
+    int stories;
+
+    private Path root;
+    private Path folder;
+    private Path indexFile;
+    private final SplittableRandom random = new SplittableRandom(16);
+
+    @Setup
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("stories-bench");
+        folder = Files.createDirectory(root.resolve("stories"));
+        indexFile = root.resolve("stories.idx");
+        for (int i = 0; i < stories; i++) {
+            Files.write(folder.resolve("story" + i + ".txt"), story(random).getBytes(StandardCharsets.UTF_8));
+        }
+        StoryIndex.open(folder, indexFile).close();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int legacyPick() throws IOException {
+        return legacy(folder.toFile(), random).placeholderCount();
+    }
+
+    @Benchmark
+    public int indexPick() throws IOException {
+        try (StoryIndex index = StoryIndex.open(folder, indexFile)) {
+            return index.load(random.nextInt(index.size())).placeholderCount();
+        }
+    }
+
+    @Benchmark
+    public int rebuildIndex() throws IOException {
+        Files.delete(indexFile);
+        try (StoryIndex index = StoryIndex.open(folder, indexFile)) {
+            return index.size();
+        }
+    }
+
+    // the original step 2 of MadLibsGenerator
+    private static MadLibsTemplate legacy(File folder, SplittableRandom random) throws IOException {
+        File[] all = folder.listFiles();
+        List<File> txtOnly = new ArrayList<>();
+        for (File f : all) {
+            if (f.isFile() && f.getName().toLowerCase().endsWith(".txt")) {
+                txtOnly.add(f);
+            }
+        }
+        File[] pool = (txtOnly.size() > 0) ? txtOnly.toArray(new File[0]) : all;
+        List<String> lines = new ArrayList<>();
+        try (Scanner fileIn = new Scanner(pool[random.nextInt(pool.length)], "UTF-8")) {
+            while (fileIn.hasNextLine()) {
+                lines.add(fileIn.nextLine());
+            }
+        }
+        return MadLibsTemplate.compile(lines);
+    }
+
+    private static String story(SplittableRandom random) {
+        String[] names = { "adjective", "animal", "verb_ending_in_ing", "place", "object", "food" };
+        StringBuilder story = new StringBuilder();
+        int lines = 3 + random.nextInt(5);
+        for (int l = 0; l < lines; l++) {
+            story.append("Today the ").append('<').append(names[random.nextInt(names.length)])
+                    .append("> went to the <").append(names[random.nextInt(names.length)]).append("> again.")
+                    .append(random.nextInt(4) == 0 ? "\r\n" : "\n");
+        }
+        return story.toString();
+    }
+}
@@ -0,0 +1,81 @@
+package M2;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * AbsKernels: the Problem3 arrays, the array class of the output, -0.0 and the
+ * MIN_VALUEs that have no positive value of their type
+ */
+class AbsKernelsTest {
+
+    @Test
+    void problem3Arrays() {
+        assertPositive(new Integer[] { 42, 17, 89, 256, 1024, 4096, 50000, 123456 }, Problem3.array1);
+        assertPositive(new Double[] { 3.14159265358979, 2.718281828459, 1.61803398875, 0.5772156649, 0.0000001,
+                1000000.0 }, Problem3.array2);
+        assertPositive(new Float[] { 1.1f, 2.2f, 3.3f, 4.4f, 5.5f, 6.6f, 7.7f, 8.8f }, Problem3.array3);
+        assertPositive(new String[] { "123", "456", "789.01", "234.56", "0.00001", "99999999" }, Problem3.array4);
+        assertPositive(new Object[] { 1, 1, 2.0f, 2.0d, "3", "3.0" }, Problem3.array5);
+    }
+
+    @Test
+    void keepsTheArrayClass() {
+        assertSame(Long[].class, AbsKernels.positive(new Long[] { -1L, 2L }).getClass());
+        assertSame(Number[].class, AbsKernels.positive(new Number[] { -1, -2.5 }).getClass());
+        assertSame(Integer[].class, AbsKernels.positive(new Integer[0]).getClass());
+        assertSame(CharSequence[].class, AbsKernels.positive(new CharSequence[] { "-a", "b" }).getClass());
+        // a BigDecimal becomes a String, which a Number[] can't hold
+        Object[] output = AbsKernels.positive(new Number[] { -1, new BigDecimal("-2.50") });
+        assertSame(Object[].class, output.getClass());
+        assertArrayEquals(new Object[] { 1, "2.50" }, output);
+    }
+
+    @Test
+    void negativeZeroBecomesZero() {
+        Object[] output = AbsKernels.positive(new Object[] { -0.0, -0.0f, 1 });
+        assertEquals(Double.doubleToRawLongBits(0.0), Double.doubleToRawLongBits((Double) output[0]));
+        assertEquals(Float.floatToRawIntBits(0.0f), Float.floatToRawIntBits((Float) output[1]));
+        double[] doubles = { -0.0, -1.5, Double.NEGATIVE_INFINITY };
+        AbsKernels.abs(doubles);
+        assertEquals(Double.doubleToRawLongBits(0.0), Double.doubleToRawLongBits(doubles[0]));
+        assertArrayEquals(new double[] { 0.0, 1.5, Double.POSITIVE_INFINITY }, doubles);
+        float[] floats = { -0.0f };
+        AbsKernels.abs(floats);
+        assertEquals(Float.floatToRawIntBits(0.0f), Float.floatToRawIntBits(floats[0]));
+    }
+
+    @Test
+    void minValuesThrow() {
+        assertThrows(ArithmeticException.class, () -> AbsKernels.abs(new int[] { 1, Integer.MIN_VALUE, 2 }));
+        assertThrows(ArithmeticException.class, () -> AbsKernels.abs(new long[] { Long.MIN_VALUE }));
+        assertThrows(ArithmeticException.class, () -> AbsKernels.positive(new Integer[] { -1, Integer.MIN_VALUE }));
+        assertThrows(ArithmeticException.class, () -> AbsKernels.positive(new Long[] { Long.MIN_VALUE }));
+        assertThrows(ArithmeticException.class, () -> AbsKernels.positive(new Object[] { "a", Integer.MIN_VALUE }));
+        assertThrows(ArithmeticException.class, () -> AbsKernels.positive(new Object[] { 1.0, Long.MIN_VALUE }));
+        // the widening version is exact
+        long[] wide = new long[2];
+        AbsKernels.abs(new int[] { Integer.MIN_VALUE, Integer.MAX_VALUE }, wide);
+        assertArrayEquals(new long[] { 1L << 31, Integer.MAX_VALUE }, wide);
+        int[] ints = { Integer.MIN_VALUE + 1, -7, 0 };
+        AbsKernels.abs(ints);
+        assertArrayEquals(new int[] { Integer.MAX_VALUE, 7, 0 }, ints);
+    }
+
+    @Test
+    void rejectsShortOutput() {
+        assertThrows(IllegalArgumentException.class, () -> AbsKernels.abs(new int[3], new int[2]));
+    }
+
+    private static void assertPositive(Object[] expected, Object[] src) {
+        Object[] output = AbsKernels.positive(src);
+        assertSame(src.getClass(), output.getClass());
+        assertArrayEquals(expected, output);
+    }
+}
@@ -0,0 +1,176 @@
+package M2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * AsyncLogSink: queued output must match SYNC, keep each thread's order, never
+ * lose text and account for every dropped event
+ */
+class AsyncLogSinkTest {
+
+    @Test
+    void queuedOutputMatchesSync() {
+        String expected = null;
+        for (AsyncLogSink.Mode mode : AsyncLogSink.Mode.values()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (AsyncLogSink sink = new AsyncLogSink(mode, new ConsoleWriter(bytes), 1024, 16)) {
+                PrintStream print = sink.printStream(StandardCharsets.UTF_8);
+                for (int i = 0; i < 200; i++) {
+                    print.println("Output " + i + ":");
+                    sink.arrayInfo(new int[] { i, -i, Integer.MIN_VALUE }, i);
+                    sink.arrayInfo(new double[] { i / 4.0 }, i);
+                    sink.arrayInfoBasic(new String[] { "a" + i }, i);
+                    sink.outputWithType(new Object[] { i, "s", 1.5 });
+                }
+                print.flush();
+            }
+            String output = bytes.toString(StandardCharsets.UTF_8);
+            if (expected == null) {
+                expected = output; // SYNC comes first
+            } else {
+                assertEquals(expected, output, mode.toString());
+            }
+        }
+    }
+
+    @Test
+    void blockKeepsEveryEventInThreadOrder() throws InterruptedException {
+        final int threads = 4;
+        final int events = 5_000;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (AsyncLogSink sink = new AsyncLogSink(AsyncLogSink.Mode.BLOCK, new ConsoleWriter(bytes), 8, 16)) {
+            run(threads, thread -> {
+                int[] values = new int[2];
+                for (int i = 0; i < events; i++) {
+                    values[0] = thread;
+                    values[1] = i;
+                    sink.arrayInfo(values, 0); // copied when queued, so reusing it is fine
+                }
+            });
+            sink.flush();
+            assertEquals(0, sink.dropped());
+        }
+        int[] next = new int[threads];
+        for (String line : bytes.toString(StandardCharsets.UTF_8).split("\n")) {
+            line = line.replaceAll("\u001B\\[[0-9;]*m", ""); // colors
+            String[] values = line.substring(line.indexOf('[') + 1, line.indexOf(']')).split(", ");
+            int thread = Integer.parseInt(values[0]);
+            assertEquals(next[thread]++, Integer.parseInt(values[1]), "thread " + thread);
+        }
+        for (int count : next) {
+            assertEquals(events, count);
+        }
+    }
+
+    @Test
+    void droppedEventsAreCountedAndTextIsKept() throws InterruptedException {
+        final int threads = 4;
+        final int events = 5_000;
+        for (AsyncLogSink.Mode mode : new AsyncLogSink.Mode[] { AsyncLogSink.Mode.DROP, AsyncLogSink.Mode.SAMPLE }) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            long dropped;
+            try (AsyncLogSink sink = new AsyncLogSink(mode, new ConsoleWriter(bytes), 4, 4)) {
+                byte[] text = "text\n".getBytes(StandardCharsets.UTF_8);
+                run(threads, thread -> {
+                    for (int i = 0; i < events; i++) {
+                        sink.arrayInfo(new int[] { 12345 }, 0);
+                        sink.text(text, 0, text.length);
+                    }
+                });
+                sink.flush();
+                dropped = sink.dropped();
+            }
+            String output = bytes.toString(StandardCharsets.UTF_8);
+            assertEquals(threads * events, count(output, "text\n"), mode.toString());
+            assertEquals(threads * events, count(output, "[12345]") + dropped, mode.toString());
+        }
+    }
+
+    @Test
+    void closeWritesEverythingAndStopsTheWriter() throws InterruptedException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        AsyncLogSink sink = new AsyncLogSink(AsyncLogSink.Mode.BLOCK, new ConsoleWriter(bytes), 64, 16);
+        for (int i = 0; i < 1_000; i++) {
+            sink.arrayInfo(new int[] { i }, 0);
+        }
+        sink.close();
+        assertEquals(1_000, count(bytes.toString(StandardCharsets.UTF_8), "\n"));
+        assertFalse(writerAlive());
+        sink.arrayInfo(new int[] { 7 }, 0); // now written on this thread
+        assertTrue(bytes.toString(StandardCharsets.UTF_8).endsWith("[7]" + BaseClass.RESET + "\n"));
+        sink.close();
+        sink.flush();
+    }
+
+    @Test
+    void eventsLoggedWhileClosingAreKept() throws InterruptedException {
+        final int threads = 4;
+        final int events = 2_000;
+        for (int round = 0; round < 20; round++) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            AsyncLogSink sink = new AsyncLogSink(AsyncLogSink.Mode.BLOCK, new ConsoleWriter(bytes), 16, 16);
+            Thread closer = new Thread(sink::close);
+            run(threads, thread -> {
+                for (int i = 0; i < events; i++) {
+                    if (thread == 0 && i == events / 2) {
+                        closer.start(); // races the other producers
+                    }
+                    sink.arrayInfo(new int[] { thread }, 0);
+                }
+            });
+            closer.join();
+            assertEquals(threads * events, count(bytes.toString(StandardCharsets.UTF_8), "\n"), "round " + round);
+        }
+    }
+
+    private interface Producer {
+        void run(int thread);
+    }
+
+    private static void run(int threads, Producer producer) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                producer.run(thread);
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int at = text.indexOf(part); at != -1; at = text.indexOf(part, at + part.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    private static boolean writerAlive() {
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("m2-log-writer") && thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
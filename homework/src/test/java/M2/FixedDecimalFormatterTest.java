@@ -0,0 +1,92 @@
+package M2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * FixedDecimalFormatter against String.format("%.2f")
+ *
+ * <p>
+ * Covers random bit patterns, random values in the range totals usually fall
+ * in, every kind of edge value and the doubles on and around the rounding ties
+ * (k + 0.5) / 100, the edge values under locales with other separators and
+ * digits, and the byte version against Locale.ROOT.
+ * </p>
+ */
+class FixedDecimalFormatterTest {
+    private static final double[] EDGES = { 0.0, -0.0, Double.MIN_VALUE, -Double.MIN_VALUE, Double.MIN_NORMAL,
+            Double.MAX_VALUE, -Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+            0x1p40, Math.nextDown(0x1p40), 0x1p-9, Math.nextDown(0x1p-9), 0.005, 0.0049999999999999, 0.995,
+            0.9949999, 1.005, 2.675, 1.115, 0.125, 0.015, 8.345, 99.995, 999999.995, 1e-3, -1e-3, 1e12,
+            123456789.125 };
+
+    private final char[] buffer = new char[FixedDecimalFormatter.MAX_LENGTH];
+
+    @Test
+    void edgeValues() {
+        for (double value : EDGES) {
+            assertSameText(value);
+            assertSameText(Math.nextUp(value));
+            assertSameText(Math.nextDown(value));
+        }
+    }
+
+    @Test
+    void randomValuesAndTies() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 200_000; i++) {
+            assertSameText(Double.longBitsToDouble(random.nextLong()));
+            assertSameText((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(-4, 13)));
+            // ties and their neighbours, where the shortest-digits rounding matters
+            double tie = (2 * random.nextLong(20_000_000_000L) + 1) / 200.0;
+            assertSameText(tie);
+            assertSameText(-tie);
+            assertSameText(Math.nextUp(tie));
+            assertSameText(Math.nextDown(tie));
+        }
+    }
+
+    @Test
+    void foreignLocales() {
+        Locale original = Locale.getDefault(Locale.Category.FORMAT);
+        try {
+            for (String tag : new String[] { "de-DE", "fa", "ar-EG", "th-TH-u-nu-thai", "hi-IN" }) {
+                Locale.setDefault(Locale.Category.FORMAT, Locale.forLanguageTag(tag));
+                for (double value : EDGES) {
+                    assertSameText(value);
+                    assertSameText(-value);
+                }
+            }
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, original);
+        }
+    }
+
+    @Test
+    void bytesUseRootLocale() {
+        byte[] bytes = new byte[FixedDecimalFormatter.MAX_LENGTH];
+        Locale original = Locale.getDefault(Locale.Category.FORMAT);
+        try {
+            Locale.setDefault(Locale.Category.FORMAT, Locale.GERMANY);
+            for (double value : EDGES) {
+                int length = FixedDecimalFormatter.format(value, bytes, 0);
+                assertEquals(String.format(Locale.ROOT, "%.2f", value),
+                        new String(bytes, 0, length, StandardCharsets.US_ASCII), () -> Double.toString(value));
+            }
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, original);
+        }
+    }
+
+    private void assertSameText(double value) {
+        String expected = String.format("%.2f", value);
+        assertEquals(expected, new String(buffer, 0, FixedDecimalFormatter.format(value, buffer, 0)),
+                () -> Double.toString(value));
+        assertEquals(expected, FixedDecimalFormatter.format(value), () -> Double.toString(value));
+    }
+}
@@ -0,0 +1,95 @@
+package M2;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The scalar and vector OddFilter engines against the printOdds style branch
+ * per element loop, on all-odd, all-even and mixed blocks and every length up
+ * to a few vectors, so each tail shorter than a vector is covered
+ */
+class OddFilterTest {
+    private static final int MAX_LENGTH = 200;
+
+    @Test
+    void vectorEngineIsLoaded() {
+        // surefire runs with --add-modules jdk.incubator.vector
+        assertEquals("VectorOddFilter", OddFilter.vector().getClass().getSimpleName());
+    }
+
+    @Test
+    void scalarMatchesBranchy() {
+        assertMatchesBranchy(new ScalarOddFilter());
+    }
+
+    @Test
+    void vectorMatchesBranchy() {
+        assertMatchesBranchy(OddFilter.vector());
+    }
+
+    @Test
+    void bestMatchesBranchy() {
+        assertMatchesBranchy(OddFilter.best());
+    }
+
+    @Test
+    void readsOnlyLength() {
+        int[] src = { 1, 3, 5, 7, 9, 11, 13, 15, 17, 19, 21, 23, 25, 27, 29, 31, 33, 35 };
+        for (OddFilter engine : new OddFilter[] { new ScalarOddFilter(), OddFilter.vector() }) {
+            int[] dst = new int[src.length];
+            assertEquals(17, engine.compact(src, 17, dst));
+            assertArrayEquals(Arrays.copyOf(src, 17), Arrays.copyOf(dst, 17));
+        }
+    }
+
+    private static void assertMatchesBranchy(OddFilter engine) {
+        SplittableRandom random = new SplittableRandom(7);
+        for (String shape : new String[] { "allOdd", "allEven", "mixed", "blocks" }) {
+            int[] src = new int[MAX_LENGTH];
+            for (int i = 0; i < src.length; i++) {
+                int value = random.nextInt();
+                switch (shape) {
+                    case "allOdd":
+                        src[i] = value | 1;
+                        break;
+                    case "allEven":
+                        src[i] = value & ~1;
+                        break;
+                    case "blocks":
+                        src[i] = value & ~1 | (i >> 4 & 1); // 16 even, 16 odd, ...
+                        break;
+                    default:
+                        src[i] = value;
+                        break;
+                }
+            }
+            src[0] = shape.equals("allEven") ? Integer.MIN_VALUE : shape.equals("allOdd") ? -1 : src[0];
+            for (int length = 0; length <= MAX_LENGTH; length++) {
+                int[] expected = new int[length];
+                int expectedCount = branchy(src, length, expected);
+                int[] actual = new int[length];
+                int count = engine.compact(src, length, actual);
+                String message = shape + " length " + length;
+                assertEquals(expectedCount, count, message);
+                assertArrayEquals(Arrays.copyOf(expected, expectedCount), Arrays.copyOf(actual, count), message);
+            }
+        }
+    }
+
+    // the original printOdds test, writing to an array instead of the console
+    private static int branchy(int[] src, int length, int[] dst) {
+        int n = 0;
+        for (int i = 0; i < length; i++) {
+            int value = src[i];
+            if (value % 2 != 0) {
+                dst[n++] = value;
+            }
+        }
+        return n;
+    }
+}
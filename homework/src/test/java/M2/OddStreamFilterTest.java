@@ -0,0 +1,112 @@
+package M2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.StringJoiner;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * OddStreamFilter: values split across reads and int chunks, signs, the int
+ * range, empty fields and malformed tokens
+ */
+class OddStreamFilterTest {
+
+    @Test
+    void splitAcrossReadsAndChunks() throws IOException {
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder text = new StringBuilder();
+        StringJoiner expected = new StringJoiner(",");
+        for (int i = 0; i < 500; i++) {
+            int value = random.nextInt();
+            text.append(value).append(i % 3 == 0 ? ", " : i % 3 == 1 ? "\n" : "\t");
+            if (value % 2 != 0) {
+                expected.add(Integer.toString(value));
+            }
+        }
+        for (int readSize : new int[] { 1, 2, 3, 7, 1 << 16 }) {
+            for (int chunkSize : new int[] { 1, 2, 5, OddStreamFilter.DEFAULT_CHUNK }) {
+                assertEquals(expected.toString(), filter(text.toString(), readSize, chunkSize),
+                        "read " + readSize + " chunk " + chunkSize);
+            }
+        }
+    }
+
+    @Test
+    void negativesAndIntRange() throws IOException {
+        assertEquals("-1,-3,7", filter("-1 -2 -3 -4 7", 1, 2));
+        assertEquals("-2147483647,2147483647", filter("-2147483648,-2147483647,2147483647", 1, 1));
+        assertEquals("", filter("-2147483648", 1, 1)); // MIN_VALUE is even
+        assertThrows(NumberFormatException.class, () -> filter("2147483648", 1, 1));
+        assertThrows(NumberFormatException.class, () -> filter("-2147483649", 1, 1));
+        assertThrows(NumberFormatException.class, () -> filter("99999999999999999999", 4, 1));
+    }
+
+    @Test
+    void emptyFieldsAreSkipped() throws IOException {
+        assertEquals("1,3", filter(",1,,2,,,3,", 1, 1));
+        assertEquals("5", filter("\r\n\n 5 \r\n", 2, 3));
+        assertEquals("", filter("", 1, 1));
+        assertEquals("", filter(" , ,\n", 1, 1));
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        for (String text : new String[] { "-", "1,-", "1, - ,3", "--1", "1-2", "1.5", "x", "1;3" }) {
+            assertThrows(NumberFormatException.class, () -> filter(text, 1, 1), text);
+        }
+    }
+
+    @Test
+    void acceptQueuesParsedValues() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OddStreamFilter filter = new OddStreamFilter(new ConsoleWriter(bytes), 3);
+        filter.accept(0);
+        filter.accept(2);
+        assertFalse(filter.printedAny());
+        for (int value = 3; value < 10; value++) {
+            filter.accept(value);
+        }
+        assertTrue(filter.printedAny()); // a full chunk is written right away
+        assertEquals(4, filter.filter(InputStream.nullInputStream()));
+        assertEquals("3,5,7,9", bytes.toString(StandardCharsets.US_ASCII));
+        assertThrows(IllegalArgumentException.class, () -> new OddStreamFilter(new ConsoleWriter(bytes), 0));
+    }
+
+    private static String filter(String text, int readSize, int chunkSize) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ConsoleWriter writer = new ConsoleWriter(bytes);
+        new OddStreamFilter(writer, chunkSize).filter(new SmallReads(text.getBytes(StandardCharsets.US_ASCII), readSize));
+        return bytes.toString(StandardCharsets.US_ASCII);
+    }
+
+    // hands out at most readSize bytes per read, so tokens straddle reads
+    private static class SmallReads extends InputStream {
+        private final ByteArrayInputStream in;
+        private final int readSize;
+
+        SmallReads(byte[] bytes, int readSize) {
+            this.in = new ByteArrayInputStream(bytes);
+            this.readSize = readSize;
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return in.read(b, off, Math.min(len, readSize));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package M2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Summation strategies against the exact sum of the doubles (computed with
+ * BigDecimal), and the totals Problem2 prints now that it uses NEUMAIER
+ */
+class SummationTest {
+    private static final double[][] PROBLEMS = { Problem2.array1, Problem2.array2, Problem2.array3, Problem2.array4,
+            Problem2.array5 };
+
+    @Test
+    void compensatedSumsAreExactOnProblem2() {
+        for (int i = 0; i < PROBLEMS.length; i++) {
+            double exact = exactSum(PROBLEMS[i]);
+            String message = "array" + (i + 1);
+            assertEquals(exact, Summation.sum(PROBLEMS[i], Summation.Strategy.NEUMAIER), message);
+            assertEquals(exact, Summation.sum(PROBLEMS[i], Summation.Strategy.PARALLEL), message);
+        }
+        // what the original loop lost
+        assertEquals(1e-16, Summation.sum(Problem2.array4, Summation.Strategy.NAIVE));
+    }
+
+    @Test
+    void parallelMatchesNeumaierAcrossChunks() {
+        SplittableRandom random = new SplittableRandom(11);
+        double[] values = new double[Summation.PARALLEL_CHUNK * 5 + 123];
+        for (int i = 0; i < values.length; i++) {
+            // wide exponent range with both signs so rounding error actually builds up
+            values[i] = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(-8, 9));
+        }
+        double exact = exactSum(values);
+        double ulp = Math.ulp(exact);
+        double naiveError = Math.abs(Summation.sum(values, Summation.Strategy.NAIVE) - exact);
+        for (Summation.Strategy strategy : new Summation.Strategy[] { Summation.Strategy.NEUMAIER,
+                Summation.Strategy.PARALLEL }) {
+            double error = Math.abs(Summation.sum(values, strategy) - exact);
+            assertTrue(error <= ulp, strategy + " error " + error);
+            assertTrue(error <= naiveError, strategy.toString());
+        }
+        double pairwiseError = Math.abs(Summation.sum(values, Summation.Strategy.PAIRWISE) - exact);
+        assertTrue(pairwiseError <= 1e-6 * Math.abs(exact) + 1e3 * ulp, "PAIRWISE error " + pairwiseError);
+    }
+
+    @Test
+    void emptyAndSingleValues() {
+        for (Summation.Strategy strategy : Summation.Strategy.values()) {
+            assertEquals(0.0, Summation.sum(new double[0], strategy), strategy.toString());
+            assertEquals(-2.5, Summation.sum(new double[] { -2.5 }, strategy), strategy.toString());
+        }
+    }
+
+    @Test
+    void problem2PrintsCompensatedTotals() {
+        PrintStream original = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+            Problem2.main(new String[0]);
+        } finally {
+            System.setOut(original);
+        }
+        List<String> totals = new ArrayList<>();
+        for (String line : bytes.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (line.startsWith("Total ")) {
+                totals.add(line);
+            }
+        }
+        assertEquals(List.of("Total Raw Value: 2.1", "Total Modified Value: 2.10",
+                "Total Raw Value: 5.0000015", "Total Modified Value: 5.00",
+                "Total Raw Value: 7.666666666666666", "Total Modified Value: 7.67",
+                "Total Raw Value: 1.0", "Total Modified Value: 1.00",
+                "Total Raw Value: 12.412475264770208", "Total Modified Value: 12.41"), totals);
+    }
+
+    private static double exactSum(double[] values) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (double value : values) {
+            total = total.add(new BigDecimal(value));
+        }
+        return total.round(MathContext.DECIMAL128).doubleValue();
+    }
+}
@@ -0,0 +1,95 @@
+package M2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * TextNormalizer against the original Problem4 regex/split chain, on the
+ * Problem4 arrays, edge phrases and random phrases with letters, digits,
+ * symbols and runs of spaces
+ */
+class TextNormalizerTest {
+    private static final String ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789!@#$%^&*-_.,";
+
+    private final TextNormalizer normalizer = new TextNormalizer(16);
+
+    @Test
+    void problem4Arrays() {
+        for (String[] arr : new String[][] { Problem4.array1, Problem4.array2, Problem4.array3, Problem4.array4 }) {
+            for (String text : arr) {
+                assertSameOutput(text);
+            }
+        }
+    }
+
+    @Test
+    void edgePhrases() {
+        for (String text : new String[] { "", " ", "   ", "\t", "!@#", " ! ", "a", "ab", "abc", " a b ", "a-b",
+                "x y z", "HELLO wORLD", "123 456", "  leading", "trailing  ", "été café" }) {
+            assertSameOutput(text);
+        }
+    }
+
+    @Test
+    void randomPhrases() {
+        SplittableRandom random = new SplittableRandom(9);
+        StringBuilder builder = new StringBuilder();
+        for (int p = 0; p < 2_000; p++) {
+            builder.setLength(0);
+            int length = random.nextInt(300); // past the initial buffer, so it grows
+            while (builder.length() < length) {
+                if (random.nextInt(6) == 0) {
+                    builder.append(" ".repeat(1 + random.nextInt(3)));
+                } else {
+                    builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+                }
+            }
+            assertSameOutput(builder.toString());
+        }
+    }
+
+    private void assertSameOutput(String text) {
+        String[] expected = legacy(text);
+        normalizer.normalize(text);
+        assertEquals(expected[0], normalizer.phrase(), text);
+        assertEquals(expected[1], normalizer.middle(), text);
+        assertEquals(expected[0].length(), normalizer.length(), text);
+        StringBuilder out = new StringBuilder("> ");
+        normalizer.appendPhrase(out);
+        out.append('|');
+        normalizer.appendMiddle(out);
+        assertEquals("> " + expected[0] + "|" + expected[1], out.toString(), text);
+    }
+
+    // the original transformText body: returns { phrase, middle }
+    static String[] legacy(String text) {
+        String s = text.replaceAll("[^A-Za-z0-9 ]", "");
+        String[] parts = s.split(" ");
+        String result = "";
+        for (int w = 0; w < parts.length; w++) {
+            String word = parts[w];
+            if (word.length() > 0) {
+                String first = word.substring(0, 1).toUpperCase();
+                String rest = (word.length() > 1) ? word.substring(1).toLowerCase() : "";
+                if (!result.isEmpty()) {
+                    result += " ";
+                }
+                result += first + rest;
+            }
+        }
+        s = result.trim().replaceAll(" +", " ");
+        String middle = "Not enough characters";
+        int len = s.length();
+        if (len > 2) {
+            int start = Math.max(1, len / 2 - 1);
+            int end = Math.min(len - 1, start + 3);
+            if (start < end) {
+                middle = s.substring(start, end);
+            }
+        }
+        return new String[] { s, middle };
+    }
+}
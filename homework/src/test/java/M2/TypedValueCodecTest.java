@@ -0,0 +1,128 @@
+package M2;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * TypedValueCodec round trips of every tag, null, varint boundaries and non
+ * ASCII text, and the failures for truncated streams and values it can't encode
+ */
+class TypedValueCodecTest {
+    private static final int MAGIC_LENGTH = TypedValueCodec.MAGIC.length;
+
+    @Test
+    void roundTripsEveryTag() throws IOException {
+        Object[][] arrays = { Problem3.array1, Problem3.array2, Problem3.array3, Problem3.array4, Problem3.array5,
+                { 1, 2L, 3.0f, 4.0, "5", null }, {}, { null },
+                { Float.NaN, -0.0f, Float.MIN_VALUE, Double.NaN, -0.0, Double.MAX_VALUE,
+                        Double.longBitsToDouble(0x7FF8_0000_0000_0001L) } };
+        Object[][] read = roundTrip(arrays);
+        assertEquals(arrays.length, read.length);
+        for (int i = 0; i < arrays.length; i++) {
+            assertArrayEquals(arrays[i], read[i], "array " + i);
+            for (int j = 0; j < arrays[i].length; j++) {
+                if (arrays[i][j] != null) {
+                    assertEquals(arrays[i][j].getClass(), read[i][j].getClass());
+                }
+            }
+        }
+        // raw bits, NaN payload included
+        assertEquals(0x7FF8_0000_0000_0001L, Double.doubleToRawLongBits((Double) read[8][6]));
+    }
+
+    @Test
+    void varintBoundaries() throws IOException {
+        Object[] values = { 0, 63, -64, 64, -65, 127, 128, -128, 8191, 8192, Integer.MIN_VALUE, Integer.MAX_VALUE,
+                0L, 127L, 128L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, (long) Integer.MIN_VALUE - 1 };
+        assertArrayEquals(values, roundTrip(new Object[][] { values })[0]);
+        // zigzag: -64..63 take one byte after the tag, 64 takes two
+        assertEquals(MAGIC_LENGTH + 1 + 2, encode(new Object[][] { { 63 } }).length);
+        assertEquals(MAGIC_LENGTH + 1 + 2, encode(new Object[][] { { -64 } }).length);
+        assertEquals(MAGIC_LENGTH + 1 + 3, encode(new Object[][] { { 64 } }).length);
+        assertEquals(MAGIC_LENGTH + 1 + 6, encode(new Object[][] { { Integer.MIN_VALUE } }).length);
+        assertEquals(MAGIC_LENGTH + 1 + 11, encode(new Object[][] { { Long.MIN_VALUE } }).length);
+        // array lengths past one varint byte and past the reader's first allocation
+        for (int length : new int[] { 127, 128, 1025, 5000 }) {
+            Object[] many = new Object[length];
+            Arrays.fill(many, length);
+            assertArrayEquals(many, roundTrip(new Object[][] { many })[0]);
+        }
+    }
+
+    @Test
+    void nonAsciiStrings() throws IOException {
+        String large = "\u00e9\u65e5\u672c\uD83D\uDE00 ".repeat(20_000); // longer than the read buffer
+        Object[] values = { "", "caf\u00e9", "\u65e5\u672c\u8a9e", "\uD83D\uDE00",
+                "\u0000\u007f\u0080\u07ff\u0800\uffff", large };
+        assertArrayEquals(values, roundTrip(new Object[][] { values })[0]);
+        // written like ConsoleWriter prints them
+        assertArrayEquals(new Object[] { "a?b", "?" }, roundTrip(new Object[][] { { "a\uD800b", "\uDC00" } })[0]);
+    }
+
+    @Test
+    void truncatedStreamsFail() throws IOException {
+        byte[] bytes = encode(new Object[][] { { 1, 200L, 1.5f, 2.5, "text", null, "\u00e9" } });
+        assertNull(new TypedValueCodec.Reader(new ByteArrayInputStream(bytes, 0, MAGIC_LENGTH)).readArray());
+        for (int length = MAGIC_LENGTH + 1; length < bytes.length; length++) {
+            TypedValueCodec.Reader reader = new TypedValueCodec.Reader(new ByteArrayInputStream(bytes, 0, length));
+            assertThrows(IOException.class, reader::readArray, "length " + length);
+        }
+        for (int length = 0; length < MAGIC_LENGTH; length++) {
+            ByteArrayInputStream in = new ByteArrayInputStream(bytes, 0, length);
+            assertThrows(IOException.class, () -> new TypedValueCodec.Reader(in));
+        }
+        byte[] unknownTag = encode(new Object[][] { { 1 } });
+        unknownTag[MAGIC_LENGTH + 1] = 99;
+        assertThrows(IOException.class, () -> new TypedValueCodec.Reader(new ByteArrayInputStream(unknownTag))
+                .readArray());
+    }
+
+    @Test
+    void rejectsOtherValues() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TypedValueCodec.Writer writer = new TypedValueCodec.Writer(bytes)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> writer.writeArray(new Object[] { 1, new BigDecimal("2.5") }));
+            assertThrows(IllegalArgumentException.class, () -> writer.writeArray(new Object[] { 'c' }));
+            // tags that don't match the values
+            assertThrows(IllegalArgumentException.class,
+                    () -> writer.writeArray(new Object[] { 1 }, new byte[] { ValueType.STRING.tag() }));
+            assertThrows(IllegalArgumentException.class,
+                    () -> writer.writeArray(new Object[] { null }, new byte[] { ValueType.INTEGER.tag() }));
+            assertThrows(IllegalArgumentException.class, () -> writer.writeArray(new Object[] { 1 }, new byte[0]));
+        }
+        // nothing but the magic was written
+        assertArrayEquals(TypedValueCodec.MAGIC, bytes.toByteArray());
+    }
+
+    private static byte[] encode(Object[][] arrays) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TypedValueCodec.Writer writer = new TypedValueCodec.Writer(bytes)) {
+            for (Object[] values : arrays) {
+                writer.writeArray(values);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object[][] roundTrip(Object[][] arrays) throws IOException {
+        try (TypedValueCodec.Reader reader = new TypedValueCodec.Reader(new ByteArrayInputStream(encode(arrays)))) {
+            Object[][] read = new Object[arrays.length][];
+            for (int i = 0; i < arrays.length; i++) {
+                read[i] = reader.readArray();
+            }
+            assertNull(reader.readArray());
+            return read;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package M3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The built-in stories of MadLibsGenerator.BuiltInStories against the lists
+ * the original main built on every run
+ */
+class BuiltInStoriesTest {
+
+    @Test
+    void storiesMatchTheOriginalLists() {
+        List<List<String>> original = legacy();
+        List<MadLibsTemplate> templates = MadLibsGenerator.BuiltInStories.TEMPLATES;
+        assertEquals(original.size(), templates.size());
+        for (int i = 0; i < original.size(); i++) {
+            MadLibsTemplate expected = MadLibsTemplate.compile(original.get(i));
+            String[] words = MadLibsTemplateTest.words(expected.placeholderCount());
+            assertEquals(expected.render(words), templates.get(i).render(words), "story " + (i + 1));
+        }
+    }
+
+    @Test
+    void templatesAreImmutable() {
+        List<MadLibsTemplate> templates = MadLibsGenerator.BuiltInStories.TEMPLATES;
+        assertThrows(UnsupportedOperationException.class, () -> templates.set(0, templates.get(1)));
+        assertThrows(UnsupportedOperationException.class, () -> templates.clear());
+    }
+
+    // the old step 1 of MadLibsGenerator.main
+    static List<List<String>> legacy() {
+        List<List<String>> builtInStories = new ArrayList<>();
+
+        // Story 1
+        List<String> s1 = new ArrayList<>();
+        s1.add("Today, I went to the zoo and saw a <adjective> <animal>.");
+        s1.add("It was <verb_ending_in_ing> near the <place>.");
+        s1.add("The zookeeper said it loved eating <food> and sleeping under a <object>.");
+        s1.add("Before I left, I bought a <adjective> <souvenir> from the gift shop!");
+        builtInStories.add(s1);
+
+        // Story 2
+        List<String> s2 = new ArrayList<>();
+        s2.add("While hiking in the <adjective> mountains, I discovered a <adjective> cave.");
+        s2.add("Inside, I found a <adjective> <creature> guarding a <object>.");
+        s2.add("It looked at me and <verb_past_tense> loudly.");
+        s2.add("I quickly grabbed my <object> and <verb_past_tense> out of there!");
+        s2.add("That was the most <adjective> adventure of my life.");
+        builtInStories.add(s2);
+
+        // Story 3
+        List<String> s3 = new ArrayList<>();
+        s3.add("My best friend invented a <adjective> machine that can <verb>.");
+        s3.add("All you need is a <object>, and it will turn it into a <adjective> <object>.");
+        s3.add("Yesterday, I put a <food> in it, and out came a <adjective> <animal>!");
+        s3.add("Now, everyone calls me the <adjective> scientist!");
+        builtInStories.add(s3);
+
+        // Story 4
+        List<String> s4 = new ArrayList<>();
+        s4.add("I was traveling through space in my <adjective> spaceship when I landed on <planet>.");
+        s4.add("The aliens there were <adjective> and <verb_ending_in_ing> around a <object>.");
+        s4.add("One of them handed me a <adjective> <object> and said, \"<gibberish_phrase>!\"");
+        s4.add("I had no idea what it meant, but I took it and <verb_past_tense> back to my spaceship.");
+        builtInStories.add(s4);
+
+        // Story 5
+        List<String> s5 = new ArrayList<>();
+        s5.add("A <adjective> witch gave me a potion that would make me <adjective>.");
+        s5.add("She told me to drink it while standing on a <object> under the <adjective> moon.");
+        s5.add("As soon as I drank it, I started <verb_ending_in_ing> uncontrollably.");
+        s5.add("From that day forward, I became the most <adjective> person in town.");
+        builtInStories.add(s5);
+        return builtInStories;
+    }
+}
@@ -0,0 +1,115 @@
+package M3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * CalculatorColumns: header mapping, missing columns, and every row's answer
+ * or error line matching CommandLineCalculator across blocks and chunks
+ */
+class CalculatorColumnsTest {
+
+    @Test
+    void mapsColumnsByNameOrNumber() throws IOException {
+        String csv = "id, price ,tax,\"a,b\"\n1,10.50,0.5,x\n2,3,-1.25,y\n";
+        assertEquals("price + tax\n11.00\n1.75\n", run(csv, "price", "+", "tax", 4).output);
+        assertEquals("tax - price\n-10.00\n-4.25\n", run(csv, "3", "-", "2", 4).output);
+        // a header with a comma is quoted again
+        assertEquals("\"a,b + id\"\n\n\n", run(csv, "a,b", "+", "id", 4).output);
+    }
+
+    @Test
+    void rejectsMissingColumns() {
+        IOException e = assertThrows(IOException.class, () -> run("a,b\n1,2\n", "a", "+", "c", 4));
+        assertTrue(e.getMessage().contains("No column c"), e.getMessage());
+        assertThrows(IOException.class, () -> run("a,b\n1,2\n", "a", "+", "3", 4));
+        assertThrows(IOException.class, () -> run("a,b\n1,2\n", "0", "+", "a", 4));
+        assertThrows(IOException.class, () -> run("", "a", "+", "b", 4));
+        assertThrows(IllegalArgumentException.class, () -> new CalculatorColumns("a", "*", "b", 4));
+    }
+
+    @Test
+    void reportsBadRowsWithTheirLineNumbers() throws IOException {
+        String csv = "a,b\n1,2\n3\nx,4\n\"5\",\"6\"\n\"7,8\n9,\n1.2.3,1\n";
+        Result result = run(csv, "a", "+", "b", 2);
+        assertEquals("a + b\n3\n\n\n11\n\n\n\n", result.output);
+        assertEquals(7, result.stats.rows);
+        assertEquals(5, result.stats.errors);
+        assertEquals(List.of("Line 3: Missing column 2", "Line 4: " + CommandLineCalculator.INVALID_INPUT,
+                "Line 6: Unterminated quoted field (a record must fit on one line)",
+                "Line 7: " + CommandLineCalculator.INVALID_INPUT, "Line 8: " + CommandLineCalculator.INVALID_INPUT),
+                result.errors);
+    }
+
+    @Test
+    void matchesTheCalculatorAcrossBlocks() throws IOException {
+        SplittableRandom random = new SplittableRandom(23);
+        StringBuilder csv = new StringBuilder("left,right\n");
+        StringBuilder plus = new StringBuilder("left + right\n");
+        StringBuilder minus = new StringBuilder("left - right\n");
+        for (int i = 0; i < CalculatorColumns.CHUNK_ROWS * 3 + 17; i++) {
+            String left = number(random);
+            String right = number(random);
+            csv.append(left).append(',').append(right).append('\n');
+            plus.append(CommandLineCalculator.calculate(left, "+", right)).append('\n');
+            minus.append(CommandLineCalculator.calculate(left, "-", right)).append('\n');
+        }
+        for (int blockRows : new int[] { 1000, CalculatorColumns.CHUNK_ROWS, 1 << 16 }) {
+            assertEquals(plus.toString(), run(csv.toString(), "left", "+", "right", blockRows).output);
+            assertEquals(minus.toString(), run(csv.toString(), "1", "-", "2", blockRows).output);
+        }
+    }
+
+    // long, decimal or too large for a long, so both paths are used
+    private static String number(SplittableRandom random) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return Long.toString(random.nextLong(-1_000_000, 1_000_000));
+            case 1:
+                return random.nextLong(-100_000, 100_000) + "." + random.nextInt(1000);
+            case 2:
+                return (random.nextBoolean() ? "-" : "") + "9".repeat(20) + "." + random.nextInt(10);
+            default:
+                return "0." + String.format("%04d", random.nextInt(10_000));
+        }
+    }
+
+    private static final class Result {
+        String output;
+        CalculatorColumns.Stats stats;
+        List<String> errors = new ArrayList<>();
+    }
+
+    private static Result run(String csv, String left, String op, String right, int blockRows) throws IOException {
+        Result result = new Result();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        PrintStream original = System.err;
+        try {
+            System.setErr(new PrintStream(err, true, StandardCharsets.UTF_8));
+            result.stats = new CalculatorColumns(left, op, right, blockRows)
+                    .run(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), out);
+        } finally {
+            System.setErr(original);
+        }
+        result.output = out.toString(StandardCharsets.UTF_8);
+        for (String line : err.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                result.errors.add(line);
+            }
+        }
+        return result;
+    }
+}
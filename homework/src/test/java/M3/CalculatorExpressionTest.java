@@ -0,0 +1,76 @@
+package M3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * CalculatorExpression against the same math written out with BigDecimal
+ */
+class CalculatorExpressionTest {
+    private static final String EXPRESSION = "(a + b) * c - d / 4 % 3 + 2 * (1.5 - 0.25) * (10 - 2 * 3)";
+
+    @Test
+    void matchesBigDecimal() {
+        CalculatorExpression expression = CalculatorExpression.compile(EXPRESSION);
+        for (String[] row : generate(100_000)) {
+            BigDecimal a = new BigDecimal(row[0]);
+            BigDecimal b = new BigDecimal(row[1]);
+            BigDecimal c = new BigDecimal(row[2]);
+            BigDecimal d = new BigDecimal(row[3]);
+            BigDecimal expected = a.add(b).multiply(c)
+                    .subtract(d.divide(new BigDecimal(4), CalculatorExpression.DIVISION).remainder(new BigDecimal(3)))
+                    .add(new BigDecimal("10.00"));
+            assertEquals(0, expected.compareTo(expression.value(a, b, c, d)), String.join(" ", row));
+        }
+    }
+
+    @Test
+    void foldsTheConstantPart() {
+        CalculatorExpression expression = CalculatorExpression.compile(EXPRESSION);
+        // a b + c * d 4 / 3 % - 10.00 +
+        assertEquals(13, expression.instructionCount());
+        assertEquals(4, expression.variableCount());
+        assertEquals("d", expression.variable(3));
+        assertEquals(2, expression.literalDecimals());
+    }
+
+    @Test
+    void formatsLikeTheCalculator() {
+        CalculatorExpression expression = CalculatorExpression.compile("x / 3 - -y");
+        assertEquals("0.33", expression.evaluate("1.00", "0"));
+        assertEquals("7.7", expression.evaluate("3", "6.7"));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> CalculatorExpression.compile("x / y").evaluate("1", "0"));
+        assertEquals(CommandLineCalculator.INVALID_INPUT, e.getMessage());
+    }
+
+    @Test
+    void rejectsDeepNesting() {
+        String deep = "(".repeat(CalculatorExpression.MAX_NESTING) + "1" + ")".repeat(CalculatorExpression.MAX_NESTING);
+        assertEquals("1", CalculatorExpression.compile(deep).evaluate());
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> CalculatorExpression.compile("-".repeat(20_000) + "1"));
+        assertTrue(e.getMessage().contains("too deeply nested"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> CalculatorExpression.compile("(" + deep + ")"));
+    }
+
+    private static String[][] generate(int rows) {
+        SplittableRandom random = new SplittableRandom(21);
+        String[][] values = new String[rows][4];
+        for (String[] row : values) {
+            for (int i = 0; i < row.length; i++) {
+                long whole = random.nextLong(-1_000_000, 1_000_000);
+                int decimals = random.nextInt(4);
+                row[i] = decimals == 0 ? Long.toString(whole)
+                        : whole + "." + String.format("%0" + decimals + "d", random.nextInt((int) Math.pow(10, decimals)));
+            }
+        }
+        return values;
+    }
+}
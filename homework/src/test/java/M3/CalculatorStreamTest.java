@@ -0,0 +1,76 @@
+package M3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * CalculatorStream: answer and error lines for expression lines and for lines
+ * of variable values, and the rejected expression without variables
+ */
+class CalculatorStreamTest {
+
+    @Test
+    void evaluatesExpressionLines() throws IOException {
+        String input = "1.5 + 2\n\n  \t\n3\t-\t0.25\n(1.5 + 2) * 3\n1 + 2 + 3\n1 + x\n2 / 0\n7 % 2\n";
+        String expected = calculate("1.5", "+", "2") + "\n" + calculate("3", "-", "0.25") + "\n"
+                + calculate("(1.5 + 2) * 3") + "\n" + calculate("1 + 2 + 3") + "\n"
+                + "Line 7: " + message(() -> calculate("1", "+", "x")) + "\n"
+                + "Line 8: " + message(() -> calculate("2", "/", "0")) + "\n" + calculate("7", "%", "2") + "\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CalculatorStream.Stats stats = CalculatorStream.run(stream(input), out);
+        assertEquals(expected, out.toString(StandardCharsets.UTF_8));
+        assertEquals(7, stats.expressions());
+        assertEquals(2, stats.errors());
+    }
+
+    @Test
+    void evaluatesVariableLines() throws IOException {
+        CalculatorExpression expression = CalculatorExpression.compile("a * (b + 1)");
+        String input = "2.5 3\n\n1\t0.5\n1 2 3\n4\nx 1\n";
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CalculatorStream.Stats stats = CalculatorStream.run(stream(input), out, expression);
+        assertEquals(expression.evaluate("2.5", "3") + "\n" + expression.evaluate("1", "0.5") + "\n"
+                + "Line 4: Expected 2 values\nLine 5: Expected 2 values\n"
+                + "Line 6: " + message(() -> expression.evaluate("x", "1")) + "\n",
+                out.toString(StandardCharsets.UTF_8));
+        assertEquals(5, stats.expressions());
+        assertEquals(3, stats.errors());
+    }
+
+    @Test
+    void rejectsExpressionsWithoutVariables() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThrows(IllegalArgumentException.class,
+                () -> CalculatorStream.run(stream("1\n2\n"), out, CalculatorExpression.compile("(1 + 2) * 3")));
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void splitsOnWhitespace() {
+        String[] tokens = new String[3];
+        assertEquals(0, CalculatorStream.split(" \t ", tokens));
+        assertEquals(3, CalculatorStream.split(" 1\t+  2 ", tokens));
+        assertEquals("+", tokens[1]);
+        assertEquals(4, CalculatorStream.split("1 + 2 + 3", tokens)); // one more means too many
+        assertEquals(1, CalculatorStream.split("x", new String[0]));
+    }
+
+    private static String calculate(String... args) {
+        return CommandLineCalculator.calculate(args);
+    }
+
+    private static ByteArrayInputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String message(Runnable call) {
+        return assertThrows(IllegalArgumentException.class, call::run).getMessage();
+    }
+}
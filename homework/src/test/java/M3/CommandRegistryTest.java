@@ -0,0 +1,96 @@
+package M3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * CommandRegistry: whole names only, case and whitespace handled like the
+ * original trim() + split("\\s+", 2), and every line counted in the metrics
+ */
+class CommandRegistryTest {
+    private final StringBuilder out = new StringBuilder();
+
+    @Test
+    void dispatchesByName() {
+        CommandRegistry registry = SlashCommands.register(new CommandRegistry());
+        assertEquals(4, registry.size());
+        assertDispatch(registry, "/greet Ada", SlashCommand.Result.OK, "Hello, Ada!\n");
+        assertDispatch(registry, "/GrEeT Ada", SlashCommand.Result.OK, "Hello, Ada!\n");
+        assertDispatch(registry, "/echo a  b", SlashCommand.Result.OK, "a  b\n");
+        assertDispatch(registry, "/greet", SlashCommand.Result.USAGE_ERROR, "Error: Usage is /greet <name>\n");
+        assertDispatch(registry, "/quit", SlashCommand.Result.QUIT, "Goodbye!\n");
+        assertSame(registry.lookup("x/ECHO y", 1, 6), registry.lookup("/echo", 0, 5));
+    }
+
+    @Test
+    void prefixesAreUnknown() {
+        CommandRegistry registry = SlashCommands.register(new CommandRegistry());
+        for (String line : new String[] { "/gree Ada", "/greetings Ada", "/", "greet Ada", "/greet-Ada", "/nope" }) {
+            assertDispatch(registry, line, SlashCommand.Result.UNHANDLED, CommandRegistry.UNHANDLED + "\n");
+        }
+        assertNull(registry.lookup("/greet", 0, 5));
+        assertNull(registry.lookup("/greet", 1, 6));
+    }
+
+    @Test
+    void blankLinesAreUsageErrors() {
+        CommandRegistry registry = SlashCommands.register(new CommandRegistry());
+        for (String line : new String[] { "", " ", "\t \t", "\r\n", "\u000B\f" }) {
+            assertDispatch(registry, line, SlashCommand.Result.USAGE_ERROR, CommandRegistry.EMPTY_COMMAND + "\n");
+        }
+    }
+
+    @Test
+    void trimsTheNameAndArguments() {
+        CommandRegistry registry = SlashCommands.register(new CommandRegistry());
+        assertDispatch(registry, "  /greet   Ada Lovelace \t", SlashCommand.Result.OK, "Hello, Ada Lovelace!\n");
+        assertDispatch(registry, "\t/greet\tAda", SlashCommand.Result.OK, "Hello, Ada!\n");
+        assertDispatch(registry, "/echo \t ", SlashCommand.Result.USAGE_ERROR, "Error: Usage is /echo <message>\n");
+        // only the \s characters end the name, other control characters are part of it
+        assertDispatch(registry, "/greet\u0001Ada", SlashCommand.Result.UNHANDLED, CommandRegistry.UNHANDLED + "\n");
+    }
+
+    @Test
+    void replacesAndFills() {
+        CommandRegistry registry = new CommandRegistry(2);
+        registry.register("/a", (args, out) -> SlashCommand.Result.OK);
+        registry.register("/B", (args, out) -> SlashCommand.Result.QUIT);
+        registry.register("/b", (args, out) -> SlashCommand.Result.USAGE_ERROR);
+        assertEquals(2, registry.size());
+        assertEquals(SlashCommand.Result.USAGE_ERROR, registry.dispatch("/B", out));
+        assertThrows(IllegalStateException.class, () -> {
+            for (int i = 0; i < 10; i++) {
+                registry.register("/c" + i, (args, out) -> SlashCommand.Result.OK);
+            }
+        });
+    }
+
+    @Test
+    void countsEveryLine() {
+        CommandRegistry registry = SlashCommands.defaults();
+        for (String line : new String[] { "/greet Ada", "/GREET", "/greet", "/gree", "/nope", " ", "", "/echo x" }) {
+            registry.dispatch(line, out);
+        }
+        CommandMetrics metrics = registry.metrics();
+        assertEquals(3, metrics.forCommand("/greet").calls.sum());
+        assertEquals(2, metrics.forCommand("/greet").usageErrors.sum());
+        assertEquals(1, metrics.forCommand("/echo").calls.sum());
+        assertEquals(0, metrics.forCommand("/roll").calls.sum());
+        out.setLength(0);
+        metrics.report(out);
+        String summary = out.substring(0, out.indexOf("\n"));
+        assertTrue(summary.startsWith("8 commands in "), summary);
+        assertTrue(summary.contains("unhandled 2 (25.00%), usage errors 4 (50.00%)"), summary);
+    }
+
+    private void assertDispatch(CommandRegistry registry, String line, SlashCommand.Result result, String output) {
+        out.setLength(0);
+        assertEquals(result, registry.dispatch(line, out), line);
+        assertEquals(output, out.toString(), line);
+    }
+}
@@ -0,0 +1,59 @@
+package M3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Csv: quoted, escaped and empty fields, and one field cut from a plain line
+ */
+class CsvTest {
+
+    @Test
+    void parsesRecords() {
+        assertEquals(List.of("story1.txt", "tall", "giraffe"), Csv.parse("story1.txt,tall,giraffe"));
+        assertEquals(List.of("a", "b, c", "d"), Csv.parse("a,\"b, c\",d"));
+        assertEquals(List.of("say \"hi\"", ""), Csv.parse("\"say \"\"hi\"\"\",\"\""));
+        assertEquals(List.of("\""), Csv.parse("\"\"\"\""));
+        // empty and trailing fields are kept
+        assertEquals(List.of("a", "", "", ""), Csv.parse("a,,,"));
+        assertEquals(List.of(""), Csv.parse(""));
+        assertEquals(List.of("", ""), Csv.parse(","));
+        // only a whole quoted field is unquoted
+        assertEquals(List.of(" \"x\"", "y\"z"), Csv.parse(" \"x\",y\"z"));
+    }
+
+    @Test
+    void rejectsUnterminatedQuotes() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> Csv.parse("a,\"b"));
+        assertTrue(e.getMessage().contains("one line"), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> Csv.parse("\"a\"b,c"));
+        assertThrows(IllegalArgumentException.class, () -> Csv.parse("\""));
+    }
+
+
+    @Test
+    void cutsOneField() {
+        assertEquals("a", Csv.field(" a ,b,c", 0));
+        assertEquals("c", Csv.field("a,b, c", 2));
+        assertEquals("", Csv.field("a,,c", 1));
+        assertEquals("", Csv.field("a,b,", 2));
+        assertNull(Csv.field("a,b", 2));
+        assertNull(Csv.field("", 1));
+    }
+
+    @Test
+    void quotesWhenNeeded() {
+        assertEquals("a + b", Csv.quote("a + b"));
+        assertEquals("\"a,b + c\"", Csv.quote("a,b + c"));
+        assertEquals("\"say \"\"hi\"\"\"", Csv.quote("say \"hi\""));
+        for (String text : new String[] { "x", "a,b", "\"", "\"\",\"" }) {
+            assertEquals(List.of(text), Csv.parse(Csv.quote(text)));
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package M3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+import java.util.function.LongSupplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Statistical checks of DiceEngine
+ *
+ * <p>
+ * The exact and approximate paths are driven by seeded generators so the
+ * checks are repeatable; thresholds are set so a correct engine would fail
+ * less than once in a thousand seeds. Only the parallel rollExact check uses
+ * the engine's own random source.
+ * </p>
+ */
+class DiceEngineTest {
+    // chi-square critical value for 15 degrees of freedom at p = 0.001
+    private static final double CHI_SQUARE_15 = 37.697;
+
+    @Test
+    void threeD6FollowsTheExactDistribution() {
+        final int samples = 1_000_000;
+        long[] expected = new long[19]; // ways to roll each total out of 216
+        for (int a = 1; a <= 6; a++) {
+            for (int b = 1; b <= 6; b++) {
+                for (int c = 1; c <= 6; c++) {
+                    expected[a + b + c]++;
+                }
+            }
+        }
+        SplittableRandom random = new SplittableRandom(3);
+        long[] observed = new long[19];
+        for (int i = 0; i < samples; i++) {
+            observed[(int) DiceEngine.sequential(random, 3, 6)]++;
+        }
+        double chi = 0;
+        for (int total = 3; total <= 18; total++) {
+            double e = samples * expected[total] / 216.0;
+            double d = observed[total] - e;
+            chi += d * d / e;
+        }
+        assertTrue(chi < CHI_SQUARE_15, "chi-square " + chi);
+    }
+
+    @Test
+    void approximateTotalsAreNormal() {
+        SplittableRandom random = new SplittableRandom(20);
+        assertNormal(100_000, () -> DiceEngine.approximate(1_000_000_000, 20, random.nextGaussian()), 1_000_000_000,
+                20, false);
+        assertNormal(2_000, () -> DiceEngine.approximate(2_000_000, 2, random.nextGaussian()), 2_000_000, 2, false);
+    }
+
+    @Test
+    void exactTotalsAreNormal() {
+        SplittableRandom random = new SplittableRandom(6);
+        assertNormal(2_000, () -> DiceEngine.sequential(random, 10_000, 6), 10_000, 6, false);
+    }
+
+    @Test
+    void parallelRollExactIsCentred() {
+        SplittableRandom random = new SplittableRandom(11);
+        int num = DiceEngine.PARALLEL_CHUNK * 2 + 1;
+        assertNormal(100, () -> DiceEngine.parallel(random.split(), num, 6), num, 6, true);
+    }
+
+    @Test
+    void largeRollsDoNotOverflow() {
+        long max = (long) Integer.MAX_VALUE * Integer.MAX_VALUE;
+        long total = DiceEngine.roll(Integer.MAX_VALUE, Integer.MAX_VALUE);
+        assertTrue(total >= Integer.MAX_VALUE && total <= max, Long.toString(total));
+        assertEquals(Integer.MAX_VALUE, DiceEngine.roll(Integer.MAX_VALUE, 1));
+    }
+
+    @Test
+    void rejectsNonPositiveArguments() {
+        assertThrows(IllegalArgumentException.class, () -> DiceEngine.roll(0, 6));
+        assertThrows(IllegalArgumentException.class, () -> DiceEngine.rollExact(3, 0));
+    }
+
+    // standardized totals should have mean 0 and variance 1; 3.3 standard errors is about p = 0.001
+    private static void assertNormal(int samples, LongSupplier roller, int num, int sides, boolean meanOnly) {
+        double mean = num * (sides + 1.0) / 2.0;
+        double deviation = Math.sqrt(num * ((double) sides * sides - 1.0) / 12.0);
+        double sum = 0;
+        double sumSquares = 0;
+        for (int i = 0; i < samples; i++) {
+            long total = roller.getAsLong();
+            assertTrue(total >= num && total <= (long) num * sides, "out of range: " + total);
+            double z = (total - mean) / deviation;
+            sum += z;
+            sumSquares += z * z;
+        }
+        double zMean = sum / samples;
+        double zVariance = sumSquares / samples - zMean * zMean;
+        assertTrue(Math.abs(zMean) <= 3.3 / Math.sqrt(samples), num + "d" + sides + " z mean " + zMean);
+        if (!meanOnly) {
+            assertTrue(Math.abs(zVariance - 1) <= 3.3 * Math.sqrt(2.0 / samples),
+                    num + "d" + sides + " z variance " + zVariance);
+        }
+    }
+}
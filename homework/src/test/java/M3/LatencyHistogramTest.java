@@ -0,0 +1,64 @@
+package M3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * LatencyHistogram: bucket boundaries, the 1/16 precision and percentiles that
+ * land on the first and last value of a bucket
+ */
+class LatencyHistogramTest {
+
+    @Test
+    void bucketEdges() {
+        for (int value = 0; value < 32; value++) {
+            assertEquals(value, LatencyHistogram.index(value)); // exact up to 2^(SUB_BITS + 1)
+            assertEquals(value, LatencyHistogram.highestValue(value));
+        }
+        int last = LatencyHistogram.index(Long.MAX_VALUE);
+        for (int index = 0; index < last; index++) {
+            long highest = LatencyHistogram.highestValue(index);
+            assertEquals(index, LatencyHistogram.index(highest), () -> Long.toString(highest));
+            assertEquals(index + 1, LatencyHistogram.index(highest + 1), () -> Long.toString(highest + 1));
+            long lowest = index == 0 ? 0 : LatencyHistogram.highestValue(index - 1) + 1;
+            assertTrue(highest - lowest <= lowest >> LatencyHistogram.SUB_BITS, () -> lowest + ".." + highest);
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValue(last));
+    }
+
+    @Test
+    void percentilesAtBucketEdges() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.percentile(0.5));
+        for (int i = 0; i < 50; i++) {
+            histogram.record(64); // bucket 64..67
+        }
+        for (int i = 0; i < 49; i++) {
+            histogram.record(1000); // bucket 992..1023
+        }
+        histogram.record(2000); // bucket 1984..2047
+        assertEquals(100, histogram.count());
+        assertEquals(67, histogram.percentile(0));
+        assertEquals(67, histogram.percentile(0.50)); // rank 50, the last value in the first bucket
+        assertEquals(1023, histogram.percentile(0.51)); // past rank 50, the next bucket
+        assertEquals(1023, histogram.percentile(0.98));
+        assertEquals(2000, histogram.percentile(1)); // capped at max
+        assertEquals(2000, histogram.max());
+    }
+
+    @Test
+    void exactSmallValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 20; value++) {
+            histogram.record(value);
+        }
+        histogram.record(-5); // counts as 0
+        assertEquals(21, histogram.count());
+        assertEquals(0, histogram.percentile(0.01));
+        assertEquals(10, histogram.percentile(0.5)); // rank 11 of 0..20
+        assertEquals(19, histogram.percentile(0.95)); // rank 20
+        assertEquals(20, histogram.percentile(1));
+    }
+}
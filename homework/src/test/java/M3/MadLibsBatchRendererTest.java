@@ -0,0 +1,72 @@
+package M3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * MadLibsBatchRenderer: the JSON lines record parser, and a run that keeps
+ * input order across batches and skips bad records
+ */
+class MadLibsBatchRendererTest {
+    private static final String STORY = "A <adjective> <animal>\nate the <food>.\n";
+
+    @Test
+    void parsesJsonRecords() {
+        assertEquals(List.of("story1.txt", "tall", "giraffe"),
+                MadLibsBatchRenderer.parseJson("{\"story\": \"story1.txt\", \"words\": [\"tall\", \"giraffe\"]}"));
+        assertEquals(List.of("s", "a\"b\\c/\n\t\u00e9"),
+                MadLibsBatchRenderer.parseJson(" { \"words\" : [ \"a\\\"b\\\\c\\/\\n\\t\\u00e9\" ] , \"story\":\"s\" } "));
+        // other keys are skipped whatever their value
+        assertEquals(List.of("s"), MadLibsBatchRenderer.parseJson(
+                "{\"id\": 12, \"tags\": [1, {\"x\": [true, null]}], \"story\": \"s\", \"words\": [], \"ok\": false}"));
+    }
+
+    @Test
+    void rejectsMalformedJson() {
+        for (String line : new String[] { "", "[]", "{", "{\"story\": \"s\"}", "{\"words\": []}",
+                "{\"story\": \"s\", \"words\": [\"a\",]}", "{\"story\": \"s\", \"words\": [\"a\"]", "{story: \"s\"}",
+                "{\"story\": \"s\" \"words\": []}", "{\"story\": \"s\", \"words\": [\"a]}",
+                "{\"story\": \"s\", \"words\": [\"\\x\"]}", "{\"story\": \"s\", \"words\": [\"\\u12\"]}",
+                "{\"story\": \"s\", \"words\": [\"\\uZZZZ\"]}", "{\"story\": 1, \"words\": []}",
+                "{\"story\": \"s\", \"words\": []} x", "{\"story\": \"s\", \"words\": [], \"n\": }" }) {
+            assertThrows(IllegalArgumentException.class, () -> MadLibsBatchRenderer.parseJson(line), line);
+        }
+    }
+
+    @Test
+    void rendersInInputOrderAndSkipsBadRecords(@TempDir Path root) throws IOException {
+        Path stories = Files.createDirectories(root.resolve("stories"));
+        Files.write(stories.resolve("s.txt"), STORY.getBytes(StandardCharsets.UTF_8));
+        MadLibsTemplate template = MadLibsTemplate.compile(STORY);
+        StringBuilder csv = new StringBuilder("story,word1,word2,word3\n");
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            if (i % 10 == 3) {
+                csv.append("missing.txt,a,b,c\n");
+            } else if (i % 10 == 7) {
+                csv.append("s.txt,too,few\n");
+            } else {
+                csv.append("s.txt,big ").append(i).append(",\"cat, ").append(i).append("\",pie\n");
+                expected.append(template.render(new String[] { "big " + i, "cat, " + i, "pie" })).append('\n');
+            }
+        }
+        Path answers = root.resolve("answers.csv");
+        Files.write(answers, csv.toString().getBytes(StandardCharsets.UTF_8));
+        Path output = root.resolve("out.txt");
+        try (MadLibsBatchRenderer renderer = new MadLibsBatchRenderer(stories, 2, 4, 1)) {
+            MadLibsBatchRenderer.Stats stats = renderer.run(answers, output);
+            assertEquals(40, stats.stories);
+            assertEquals(10, stats.errors);
+        }
+        assertEquals(expected.toString(), new String(Files.readAllBytes(output), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,129 @@
+package M3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * MadLibsTemplate against the original MadLibsGenerator replace loop
+ *
+ * <p>
+ * Every file in M3/stories and a few generated stories (plain words, stray
+ * '&lt;' and '&gt;' characters, empty "&lt;&gt;" placeholders) must render
+ * exactly as the original did, from lines and from whole file text with every
+ * line separator Scanner knows.
+ * </p>
+ */
+class MadLibsTemplateTest {
+    // surefire runs in homework/
+    static final Path STORIES = Paths.get("../M3/stories");
+    private static final String[] SEPARATORS = { "\n", "\r\n", "\r", "\u2028", "\u0085" };
+
+    @Test
+    void rendersLikeTheOriginal() throws IOException {
+        for (List<String> story : stories()) {
+            MadLibsTemplate template = MadLibsTemplate.compile(story);
+            String[] words = words(template.placeholderCount());
+            assertEquals(legacy(story, words), template.render(words), story.get(0));
+        }
+    }
+
+    @Test
+    void textSplitsLinesLikeScanner() throws IOException {
+        for (List<String> story : stories()) {
+            for (String separator : SEPARATORS) {
+                for (String ending : new String[] { "", separator }) {
+                    String text = String.join(separator, story) + ending;
+                    List<String> lines = new ArrayList<>();
+                    try (Scanner scanner = new Scanner(text)) {
+                        while (scanner.hasNextLine()) {
+                            lines.add(scanner.nextLine());
+                        }
+                    }
+                    String[] words = words(MadLibsTemplate.compile(lines).placeholderCount());
+                    assertEquals(legacy(lines, words), MadLibsTemplate.compile(text).render(words),
+                            "text of " + story.get(0));
+                }
+            }
+        }
+    }
+
+    private static List<List<String>> stories() throws IOException {
+        List<List<String>> stories = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(STORIES, "*.txt")) {
+            for (Path file : files) {
+                stories.add(Files.readAllLines(file, StandardCharsets.UTF_8));
+            }
+        }
+        stories.add(generate(20, 200));
+        stories.add(generate(50, 3));
+        stories.add(List.of(""));
+        return stories;
+    }
+
+    // the original step 3 and 4 of MadLibsGenerator, taking words in prompt order
+    static String legacy(List<String> story, String[] words) {
+        List<String> lines = new ArrayList<>(story);
+        int next = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            while (true) {
+                int start = line.indexOf('<');
+                if (start == -1) break;
+                int end = line.indexOf('>', start + 1);
+                if (end == -1) break;
+                String word = words[next++];
+                String before = line.substring(0, start);
+                String after = line.substring(end + 1);
+                line = before + word + after;
+            }
+            lines.set(i, line);
+        }
+        StringBuilder finalStory = new StringBuilder();
+        for (String line : lines) {
+            finalStory.append(line).append("\n");
+        }
+        return finalStory.toString();
+    }
+
+    static String[] words(int count) {
+        String[] words = new String[count];
+        for (int i = 0; i < count; i++) {
+            words[i] = "word" + i;
+        }
+        return words;
+    }
+
+    static List<String> generate(int lineCount, int perLine) {
+        SplittableRandom random = new SplittableRandom(15);
+        String[] names = { "adjective", "animal", "verb_ending_in_ing", "place", "", "object" };
+        List<String> lines = new ArrayList<>(lineCount);
+        StringBuilder line = new StringBuilder();
+        for (int l = 0; l < lineCount; l++) {
+            line.setLength(0);
+            for (int p = 0; p < perLine; p++) {
+                line.append("the ");
+                if (random.nextInt(20) == 0) {
+                    line.append(random.nextBoolean() ? "> " : "a < b ");
+                }
+                line.append('<').append(names[random.nextInt(names.length)]).append("> ");
+            }
+            if (random.nextBoolean()) {
+                line.append("trailing < without end");
+            }
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,152 @@
+package M3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * CommandLineCalculator.calculate against the original BigDecimal and
+ * DecimalFormat code
+ *
+ * <p>
+ * The answers (or error messages) must be identical for every pair of edge
+ * cases (negatives rounding to zero, half even ties, 18 and 19 digit numbers,
+ * long overflow, scientific notation, huge exponents, bad numbers) and for
+ * random pairs mixing plain, signed and exponent forms with up to 20 digits,
+ * so both the ScaledDecimal path and its BigDecimal fallback are covered.
+ * </p>
+ */
+class ScaledDecimalTest {
+    private static final String[] EDGES = { "0", "-0", "-0.0", "0.00", "-0.001", "0.001", "0.005", "-0.005", "0.015",
+            "0.025", "-0.0051", "0.5", "1.5", "2.5", "-2.5", "-3.5", ".5", "5.", "+5", "+.5", "-.5", "1.e3", "1E+3",
+            "1e-3", "1.50e1", "1.5E-1", "123.456e-2", "0e5", "0.0e-5", "1e18", "1e19", "-1e-19", "1e-30", "-1e-30",
+            "999999999999999999", "-999999999999999999", "9999999999999999999", "9223372036854775807",
+            "-9223372036854775808", "922337203685477580.7", "0.000000000000000001", "0.0000000000000000005",
+            "0.00000000000000000051", "5e-19", "-5e-19", "1e2147483647", "1e-2147483647", "1e2147483648", "1e400",
+            "1.5e400", "00012.3400", "abc", "1..2", "--1", "1e", "1e+", "e5", ".", "", "1 ", "١٢", "1,5",
+            "0x10", "Infinity", "NaN" };
+
+    @Test
+    void edgeCasesMatchTheOriginal() {
+        for (String left : EDGES) {
+            for (String right : EDGES) {
+                assertSameAnswer(left, "+", right);
+                assertSameAnswer(left, "-", right);
+            }
+        }
+    }
+
+    @Test
+    void randomPairsMatchTheOriginal() {
+        SplittableRandom random = new SplittableRandom(22);
+        for (int i = 0; i < 50_000; i++) {
+            assertSameAnswer(randomNumber(random, 20, 20, true), random.nextBoolean() ? "+" : "-",
+                    randomNumber(random, 20, 20, true));
+        }
+    }
+
+    @Test
+    void typicalPairsMatchTheOriginal() {
+        SplittableRandom random = new SplittableRandom(9);
+        for (int i = 0; i < 20_000; i++) {
+            assertSameAnswer(randomNumber(random, 9, 4, false), random.nextBoolean() ? "+" : "-",
+                    randomNumber(random, 9, 4, false));
+        }
+    }
+
+    private static void assertSameAnswer(String left, String op, String right) {
+        String actual;
+        try {
+            actual = CommandLineCalculator.calculate(left, op, right);
+        } catch (IllegalArgumentException e) {
+            actual = e.getMessage();
+        }
+        assertEquals(legacy(left, op, right), actual, () -> left + " " + op + " " + right);
+    }
+
+    // the original CommandLineCalculator math, answer or error message
+    private static String legacy(String leftText, String opText, String rightText) {
+        try {
+            BigDecimal left = new BigDecimal(leftText);
+            BigDecimal right = new BigDecimal(rightText);
+            int maxDecimals = Math.max(legacyDecimals(leftText), legacyDecimals(rightText));
+            BigDecimal answer = opText.equals("+") ? left.add(right) : left.subtract(right);
+            String pattern;
+            if (maxDecimals == 0) {
+                pattern = "0";
+            } else {
+                String dots = "0.";
+                int i = 0;
+                while (i < maxDecimals) {
+                    dots = dots + "0";
+                    i = i + 1;
+                }
+                pattern = dots;
+            }
+            return new DecimalFormat(pattern).format(answer);
+        } catch (Exception e) {
+            return CommandLineCalculator.INVALID_INPUT;
+        }
+    }
+
+    private static int legacyDecimals(String text) {
+        int dot = text.indexOf('.');
+        if (dot == -1) {
+            return 0;
+        }
+        int end = text.length();
+        int e1 = text.indexOf('e');
+        int e2 = text.indexOf('E');
+        int ePos = -1;
+        if (e1 != -1 && e2 != -1) {
+            ePos = (e1 < e2) ? e1 : e2;
+        } else if (e1 != -1) {
+            ePos = e1;
+        } else if (e2 != -1) {
+            ePos = e2;
+        }
+        if (ePos != -1) {
+            end = ePos;
+        }
+        return Math.max(0, end - dot - 1);
+    }
+
+    private static String randomNumber(SplittableRandom random, int maxDigits, int maxDecimals, boolean exotic) {
+        StringBuilder text = new StringBuilder(32);
+        int sign = random.nextInt(exotic ? 6 : 2);
+        if (sign == 0) {
+            text.append('-');
+        } else if (sign == 1 && exotic) {
+            text.append('+');
+        }
+        int whole = random.nextInt(1, maxDigits + 1);
+        int decimals = random.nextInt(maxDecimals + 1);
+        if (exotic && random.nextInt(8) == 0) {
+            whole = 1; // mostly zeros: values that round to zero
+            text.append('0');
+        } else {
+            for (int i = 0; i < whole; i++) {
+                text.append((char) ('0' + random.nextInt(10)));
+            }
+        }
+        if (decimals > 0 || exotic && random.nextInt(10) == 0) {
+            text.append('.');
+            for (int i = 0; i < decimals; i++) {
+                text.append((char) ('0' + random.nextInt(exotic && random.nextBoolean() ? 1 : 10)));
+            }
+        }
+        if (exotic && random.nextInt(5) == 0) {
+            text.append(random.nextBoolean() ? 'e' : 'E');
+            int exponent = random.nextInt(-25, 26);
+            if (exponent >= 0 && random.nextBoolean()) {
+                text.append('+');
+            }
+            text.append(exponent);
+        }
+        return text.toString();
+    }
+}
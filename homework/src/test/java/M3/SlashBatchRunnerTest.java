@@ -0,0 +1,93 @@
+package M3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * SlashBatchRunner and the --batch path of SlashCommandHandler: the answers
+ * without prompts, /quit ending the run and the flushes
+ */
+class SlashBatchRunnerTest {
+    private static final String SCRIPT = "/greet Ada\n/echo two  words\n";
+    private static final String ANSWERS = "Hello, Ada!\ntwo  words\n";
+
+    @TempDir
+    Path root;
+
+    @Test
+    void batchRunsAScriptFile() throws IOException {
+        Path script = root.resolve("script.txt");
+        Files.write(script, SCRIPT.getBytes(StandardCharsets.UTF_8));
+        assertEquals(ANSWERS, handler(null, "--batch", script.toString()));
+    }
+
+    @Test
+    void batchReadsStandardInput() throws IOException {
+        assertEquals(ANSWERS, handler(SCRIPT, "--batch"));
+        assertEquals(ANSWERS, handler(SCRIPT, "--batch", "-", "1"));
+    }
+
+    @Test
+    void quitEndsTheRun() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long commands = new SlashBatchRunner(SlashCommands.defaults(), 0).run(input("/echo a\n\n/quit\n/echo b\n"), out);
+        assertEquals(3, commands);
+        assertEquals("a\n" + CommandRegistry.EMPTY_COMMAND + "\nGoodbye!\n", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void flushesEveryFewCommands() throws IOException {
+        String script = "/echo x\n".repeat(10);
+        assertEquals(1, flushes(script, 0));
+        assertEquals(4, flushes(script, 3)); // after 3, 6 and 9 and at the end
+        assertEquals(11, flushes(script, 1));
+        assertThrows(IllegalArgumentException.class, () -> new SlashBatchRunner(SlashCommands.defaults(), -1));
+    }
+
+    private static int flushes(String script, int flushEvery) throws IOException {
+        int[] flushes = new int[1];
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                flushes[0]++;
+            }
+        };
+        new SlashBatchRunner(SlashCommands.defaults(), flushEvery).run(input(script), out);
+        assertEquals("x\n".repeat(10), out.toString(StandardCharsets.UTF_8));
+        return flushes[0];
+    }
+
+    private static InputStream input(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // runs the handler with stdin (when not null) and stdout redirected
+    private static String handler(String stdin, String... args) throws IOException {
+        InputStream in = System.in;
+        PrintStream out = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            if (stdin != null) {
+                System.setIn(input(stdin));
+            }
+            System.setOut(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+            SlashCommandHandler.main(args);
+        } finally {
+            System.setIn(in);
+            System.setOut(out);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,179 @@
+package M3;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * StoryArchive round trips, the Builder's commit rules and corrupt archives
+ */
+class StoryArchiveTest {
+    private static final String[] NAMES = { "adjective", "animal", "verb_ending_in_ing", "place", "object", "food" };
+
+    @TempDir
+    Path root;
+
+    @Test
+    void storiesRoundTrip() throws IOException {
+        Path file = root.resolve("stories.pack");
+        try (StoryArchive.Builder builder = new StoryArchive.Builder(file)) {
+            for (int i = 0; i < 5000; i++) {
+                builder.add("story" + i + ".txt", story(i));
+            }
+            builder.add("empty.txt", "");
+            builder.commit();
+        }
+        try (StoryArchive archive = StoryArchive.open(file)) {
+            assertEquals(5001, archive.size());
+            for (int i = 0; i < 5000; i++) {
+                assertEquals("story" + i + ".txt", archive.name(i));
+                assertSameStory(MadLibsTemplate.compile(story(i)), archive.load(i));
+            }
+            assertEquals(0, archive.load(5000).placeholderCount());
+            assertThrows(IndexOutOfBoundsException.class, () -> archive.load(5001));
+        }
+    }
+
+    @Test
+    void editedStoryFileIsReadAgain() throws IOException {
+        Path folder = Files.createDirectory(root.resolve("stories"));
+        Path kept = Files.write(folder.resolve("a.txt"), story(1).getBytes(StandardCharsets.UTF_8));
+        Path edited = Files.write(folder.resolve("b.txt"), story(2).getBytes(StandardCharsets.UTF_8));
+        Path file = root.resolve("stories.pack");
+        try (StoryArchive.Builder builder = new StoryArchive.Builder(file)) {
+            builder.add(kept).add(edited).commit();
+        }
+        FileTime time = Files.getLastModifiedTime(edited);
+        Files.write(edited, story(3).getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(edited, FileTime.fromMillis(time.toMillis() + 2000));
+        try (StoryArchive archive = StoryArchive.open(file)) {
+            assertSameStory(MadLibsTemplate.compile(story(1)), archive.load(0, folder));
+            assertSameStory(MadLibsTemplate.compile(story(2)), archive.load(1));
+            assertSameStory(MadLibsTemplate.compile(story(3)), archive.load(1, folder));
+        }
+    }
+
+    @Test
+    void closingWithoutCommitKeepsTheOldArchive() throws IOException {
+        Path file = root.resolve("stories.pack");
+        try (StoryArchive.Builder builder = new StoryArchive.Builder(file)) {
+            builder.add("old.txt", story(1)).commit();
+            assertThrows(IllegalStateException.class, () -> builder.add("late.txt", story(2)));
+        }
+        byte[] committed = Files.readAllBytes(file);
+        try (StoryArchive.Builder builder = new StoryArchive.Builder(file)) {
+            builder.add("new.txt", story(2));
+        }
+        assertArrayEquals(committed, Files.readAllBytes(file));
+        assertFalse(Files.exists(root.resolve("stories.pack.tmp")));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = Files.write(root.resolve("notes.pack"), new byte[64]);
+        assertThrows(IOException.class, () -> StoryArchive.open(file));
+    }
+
+    @Test
+    void rejectsCorruptOffsets() throws IOException {
+        byte[] good = Files.readAllBytes(build("a.txt", "A <x> b", "b.txt", "C <y> and <z>"));
+        ByteBuffer bytes = ByteBuffer.wrap(good);
+        int table = (int) bytes.getLong(16);
+        // past the file, backwards, into the table, not starting at the first story, a truncated file
+        assertOpenFails(edit(good, b -> b.putLong(table + 8, Integer.MAX_VALUE)));
+        assertOpenFails(edit(good, b -> b.putLong(table + 8, 30)));
+        assertOpenFails(edit(good, b -> b.putLong(table + 8, table + 8)));
+        assertOpenFails(edit(good, b -> b.putLong(table, 0)));
+        assertOpenFails(edit(good, b -> b.putLong(table + 16, table - 1)));
+        assertOpenFails(edit(good, b -> b.putLong(16, good.length)));
+        assertOpenFails(edit(good, b -> b.putInt(8, 3)));
+        assertOpenFails(Arrays.copyOf(good, good.length - 1));
+    }
+
+    @Test
+    void rejectsCorruptRecords() throws IOException {
+        byte[] good = Files.readAllBytes(build("a.txt", "A <x> b", "b.txt", "C <y> and <z>"));
+        ByteBuffer bytes = ByteBuffer.wrap(good);
+        int first = (int) bytes.getLong((int) bytes.getLong(16));
+        int spans = first + 2 + 5 + 16; // after the name, size and time
+        int text = spans + 4 + 4 * 2;
+        assertLoadFails(edit(good, b -> b.putShort(first, (short) 0xFFFF)), true);
+        assertLoadFails(edit(good, b -> b.putInt(spans, 1)), false);
+        assertLoadFails(edit(good, b -> b.putInt(spans, -2)), false);
+        assertLoadFails(edit(good, b -> b.putInt(spans, 1 << 20)), false);
+        assertLoadFails(edit(good, b -> b.putInt(spans + 8, 100)), false);
+        assertLoadFails(edit(good, b -> b.putInt(spans + 4, 5)), false);
+        assertLoadFails(edit(good, b -> b.putInt(text, 100)), false);
+        assertLoadFails(edit(good, b -> b.putInt(text, -1)), false);
+    }
+
+    private Path build(String... namesAndTexts) throws IOException {
+        Path file = root.resolve("stories.pack");
+        try (StoryArchive.Builder builder = new StoryArchive.Builder(file)) {
+            for (int i = 0; i < namesAndTexts.length; i += 2) {
+                builder.add(namesAndTexts[i], namesAndTexts[i + 1]);
+            }
+            builder.commit();
+        }
+        return file;
+    }
+
+    private interface Edit {
+        void apply(ByteBuffer bytes);
+    }
+
+    private static byte[] edit(byte[] archive, Edit edit) {
+        byte[] copy = archive.clone();
+        edit.apply(ByteBuffer.wrap(copy));
+        return copy;
+    }
+
+    private void assertOpenFails(byte[] archive) throws IOException {
+        Path file = Files.write(root.resolve("corrupt.pack"), archive);
+        assertThrows(IOException.class, () -> StoryArchive.open(file));
+    }
+
+    // the other story of the archive still loads
+    private void assertLoadFails(byte[] archive, boolean name) throws IOException {
+        Path file = Files.write(root.resolve("corrupt.pack"), archive);
+        try (StoryArchive open = StoryArchive.open(file)) {
+            assertThrows(IOException.class, () -> open.load(0));
+            if (name) {
+                assertThrows(IOException.class, () -> open.name(0));
+                assertThrows(IOException.class, () -> open.load(0, root));
+            }
+            assertEquals("b.txt", open.name(1));
+            assertEquals(2, open.load(1).placeholderCount());
+        }
+    }
+
+    // deterministic story i, so the archive can be checked without keeping every story
+    static String story(int i) {
+        SplittableRandom random = new SplittableRandom(i);
+        StringBuilder story = new StringBuilder(256);
+        int lines = 2 + random.nextInt(4);
+        for (int l = 0; l < lines; l++) {
+            story.append("Story ").append(i).append(" saw a <").append(NAMES[random.nextInt(NAMES.length)])
+                    .append("> near the <").append(NAMES[random.nextInt(NAMES.length)]).append(">.\n");
+        }
+        return story.toString();
+    }
+
+    private static void assertSameStory(MadLibsTemplate expected, MadLibsTemplate actual) {
+        String[] words = MadLibsTemplateTest.words(expected.placeholderCount());
+        assertEquals(expected.render(words), actual.render(words));
+    }
+}
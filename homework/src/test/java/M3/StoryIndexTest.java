@@ -0,0 +1,102 @@
+package M3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * StoryIndex against compiling each story from its Scanner lines, the way
+ * MadLibsGenerator originally read them
+ */
+class StoryIndexTest {
+    @TempDir
+    Path root;
+
+    @Test
+    void indexedStoriesMatchTheFiles() throws IOException {
+        Path folder = folder(200);
+        Path indexFile = root.resolve("stories.idx");
+        for (int pass = 0; pass < 2; pass++) { // built, then reopened
+            try (StoryIndex index = StoryIndex.open(folder, indexFile)) {
+                assertEquals(200, index.size());
+                for (int i = 0; i < index.size(); i++) {
+                    assertSame(folder.resolve(index.name(i)), index.load(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void storyEditedInPlaceIsReadAgain() throws IOException {
+        Path folder = folder(3);
+        Path indexFile = root.resolve("stories.idx");
+        StoryIndex.open(folder, indexFile).close();
+        FileTime folderTime = Files.getLastModifiedTime(folder);
+        Path story = folder.resolve("story1.txt");
+        Files.write(story, "A <adjective> rewrite of <place>, <verb> and <noun>.\n".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(story, FileTime.fromMillis(Files.getLastModifiedTime(story).toMillis() + 2000));
+        Files.setLastModifiedTime(folder, folderTime);
+        try (StoryIndex index = StoryIndex.open(folder, indexFile)) {
+            for (int i = 0; i < index.size(); i++) {
+                assertSame(folder.resolve(index.name(i)), index.load(i));
+            }
+        }
+    }
+
+    @Test
+    void addedStoryRebuildsTheIndex() throws IOException {
+        Path folder = folder(3);
+        Path indexFile = root.resolve("stories.idx");
+        StoryIndex.open(folder, indexFile).close();
+        Files.write(folder.resolve("story9.txt"), "<noun>\n".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(folder,
+                FileTime.fromMillis(Files.getLastModifiedTime(folder).toMillis() + 2000));
+        try (StoryIndex index = StoryIndex.open(folder, indexFile)) {
+            assertEquals(4, index.size());
+        }
+    }
+
+    private Path folder(int stories) throws IOException {
+        Path folder = Files.createDirectory(root.resolve("stories"));
+        SplittableRandom random = new SplittableRandom(16);
+        for (int i = 0; i < stories; i++) {
+            Files.write(folder.resolve("story" + i + ".txt"), story(random).getBytes(StandardCharsets.UTF_8));
+        }
+        return folder;
+    }
+
+    private static void assertSame(Path file, MadLibsTemplate template) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (Scanner fileIn = new Scanner(file, "UTF-8")) {
+            while (fileIn.hasNextLine()) {
+                lines.add(fileIn.nextLine());
+            }
+        }
+        MadLibsTemplate expected = MadLibsTemplate.compile(lines);
+        String[] words = MadLibsTemplateTest.words(expected.placeholderCount());
+        assertEquals(expected.render(words), template.render(words), file.toString());
+    }
+
+    static String story(SplittableRandom random) {
+        String[] names = { "adjective", "animal", "verb_ending_in_ing", "place", "object", "food" };
+        StringBuilder story = new StringBuilder();
+        int lines = 3 + random.nextInt(5);
+        for (int l = 0; l < lines; l++) {
+            story.append("Today the ").append('<').append(names[random.nextInt(names.length)])
+                    .append("> went to the <").append(names[random.nextInt(names.length)]).append("> again.")
+                    .append(random.nextInt(4) == 0 ? "\r\n" : "\n");
+        }
+        return story.toString();
+    }
+}